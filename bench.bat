@@ -0,0 +1,20 @@
+@echo off
+echo Running JMH benchmarks...
+echo.
+
+REM Benchmarks are built by Gradle (build.gradle, jmh source set).
+REM Pass a name filter as the first argument, e.g. bench.bat HeaderParserBenchmark.parse
+if "%~1"=="" (
+    gradle jmh
+) else (
+    gradle jmh -PjmhIncludes=%1
+)
+
+if errorlevel 1 (
+    echo Benchmark error!
+    pause
+    exit /b 1
+)
+
+echo Results: build\results\jmh\results.json
+pause
@@ -0,0 +1,38 @@
+package imageinfo;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+// Общий для всех бенчмарков синтетический набор изображений. Создаётся один раз в
+// -Dbench.dir (по умолчанию imageinfo-bench во временном каталоге) и переиспользуется
+@State(Scope.Benchmark)
+public class BenchmarkCorpus {
+    private SyntheticCorpus corpus;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        ImageIO.setUseCache(false);
+        File dir = new File(System.getProperty("bench.dir",
+                System.getProperty("java.io.tmpdir") + File.separator + "imageinfo-bench"));
+        corpus = SyntheticCorpus.generate(dir);
+    }
+
+    public List<File> getFiles(String format) {
+        List<File> files = corpus.getFilesByFormat().get(format);
+        if (files == null) {
+            throw new IllegalArgumentException("Нет файлов формата " + format);
+        }
+        return files;
+    }
+
+    public File createTree(int directories, int filesPerDirectory) throws IOException {
+        return corpus.createTree(directories, filesPerDirectory);
+    }
+}
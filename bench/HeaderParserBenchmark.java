@@ -0,0 +1,104 @@
+package imageinfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Разбор одного файла каждого формата тремя путями: собственный парсер заголовка, прямой путь
+// ImageIO (перебор всех SPI и новый ImageReader на файл) и запасной путь обработчика через
+// ImageReaderPool. Файлы набора (три размера) перебираются по кругу
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class HeaderParserBenchmark {
+    @Param({"JPEG", "PNG", "GIF", "BMP", "TIFF", "PCX"})
+    public String format;
+
+    private File[] files;
+    private long[] sizes;
+    private int next;
+    private HeaderParserEngine engine;
+    private ImageReaderPool readerPool;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkCorpus corpus) {
+        List<File> formatFiles = corpus.getFiles(format);
+        files = formatFiles.toArray(new File[0]);
+        sizes = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            sizes[i] = files[i].length();
+        }
+        engine = new HeaderParserEngine();
+        readerPool = new ImageReaderPool();
+    }
+
+    @Benchmark
+    public ImageInfo parse(Blackhole blackhole) throws IOException {
+        int index = nextIndex();
+        ImageInfo info = new ImageInfo();
+        info.setFileSize(sizes[index]);
+        blackhole.consume(engine.parse(files[index], info));
+        return info;
+    }
+
+    @Benchmark
+    public void imageio(Blackhole blackhole) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(files[nextIndex()])) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                blackhole.consume(false);
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis);
+                blackhole.consume(reader.getWidth(0));
+                blackhole.consume(reader.getHeight(0));
+                blackhole.consume(reader.getImageMetadata(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    @Benchmark
+    public void readerPool(Blackhole blackhole) throws IOException {
+        try (ImageInputStream iis = new FileImageInputStream(files[nextIndex()])) {
+            ImageReader reader = readerPool.acquire(iis);
+            if (reader == null) {
+                blackhole.consume(false);
+                return;
+            }
+            try {
+                blackhole.consume(reader.getWidth(0));
+                blackhole.consume(reader.getHeight(0));
+                blackhole.consume(reader.getImageMetadata(0));
+            } finally {
+                readerPool.release(reader);
+            }
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == files.length ? 0 : index + 1;
+        return index;
+    }
+}
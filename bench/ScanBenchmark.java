@@ -0,0 +1,69 @@
+package imageinfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Полное сканирование дерева из 2000 файлов (40 каталогов по 50) без кэша и контрольных точек,
+// в обоих режимах исполнения. Выделения профилировщик gc считает по всем потокам JVM
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ScanBenchmark {
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ScanExecutionMode mode;
+
+    private File tree;
+    private ImageInfoProcessor processor;
+    private volatile ScanSummary summary;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkCorpus corpus) throws IOException {
+        tree = corpus.createTree(40, 50);
+        processor = new ImageInfoProcessor();
+        processor.setScanCacheEnabled(false);
+        processor.setCheckpointEnabled(false);
+        processor.setExecutionMode(mode);
+        processor.setListener(new ScanListener() {
+            @Override
+            public void scanStarted(File folder) {
+            }
+
+            @Override
+            public void fileProcessed(ImageInfo info) {
+            }
+
+            @Override
+            public void fileFailed(File file, Exception error) {
+            }
+
+            @Override
+            public void scanFinished(ScanSummary scanSummary) {
+                summary = scanSummary;
+            }
+        });
+    }
+
+    // Итог сканирования возвращается JMH, чтобы работа не была выброшена как мёртвый код
+    @Benchmark
+    public ScanSummary processFolder() {
+        processor.processFolder(tree);
+        return summary;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        processor.shutdown();
+    }
+}
@@ -0,0 +1,126 @@
+package imageinfo;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Синтетический набор изображений для бенчмарков: файлы всех поддерживаемых форматов
+// нескольких размеров и дерево каталогов из их копий для полного сканирования
+public class SyntheticCorpus {
+    private static final int[][] SIZES = {{320, 200}, {1024, 768}, {2048, 1536}};
+
+    private final File root;
+    private final Map<String, List<File>> filesByFormat = new LinkedHashMap<>();
+
+    private SyntheticCorpus(File root) {
+        this.root = root;
+    }
+
+    public static SyntheticCorpus generate(File root) throws IOException {
+        SyntheticCorpus corpus = new SyntheticCorpus(root);
+        File formatsDir = new File(root, "formats");
+        if (!formatsDir.isDirectory() && !formatsDir.mkdirs()) {
+            throw new IOException("Не удалось создать каталог " + formatsDir);
+        }
+        for (int[] size : SIZES) {
+            BufferedImage rgb = createImage(size[0], size[1], BufferedImage.TYPE_3BYTE_BGR);
+            BufferedImage indexed = createImage(size[0], size[1], BufferedImage.TYPE_BYTE_INDEXED);
+            String suffix = size[0] + "x" + size[1];
+            corpus.write("JPEG", rgb, "jpg", new File(formatsDir, "image_" + suffix + ".jpg"));
+            corpus.write("PNG", rgb, "png", new File(formatsDir, "image_" + suffix + ".png"));
+            corpus.write("GIF", indexed, "gif", new File(formatsDir, "image_" + suffix + ".gif"));
+            corpus.write("BMP", rgb, "bmp", new File(formatsDir, "image_" + suffix + ".bmp"));
+            corpus.write("TIFF", rgb, "tiff", new File(formatsDir, "image_" + suffix + ".tif"));
+            File pcx = new File(formatsDir, "image_" + suffix + ".pcx");
+            writePcx(pcx, size[0], size[1]);
+            corpus.filesByFormat.computeIfAbsent("PCX", k -> new ArrayList<>()).add(pcx);
+        }
+        return corpus;
+    }
+
+    public Map<String, List<File>> getFilesByFormat() {
+        return filesByFormat;
+    }
+
+    // Дерево directories x filesPerDirectory из копий файлов набора
+    public File createTree(int directories, int filesPerDirectory) throws IOException {
+        File tree = new File(root, "tree_" + directories + "x" + filesPerDirectory);
+        List<File> all = new ArrayList<>();
+        filesByFormat.values().forEach(all::addAll);
+        int n = 0;
+        for (int d = 0; d < directories; d++) {
+            File dir = new File(tree, "dir" + (d / 10) + File.separator + "sub" + d);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Не удалось создать каталог " + dir);
+            }
+            for (int f = 0; f < filesPerDirectory; f++, n++) {
+                File source = all.get(n % all.size());
+                File target = new File(dir, "f" + f + "_" + source.getName());
+                if (!target.exists()) {
+                    Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        return tree;
+    }
+
+    private void write(String format, BufferedImage image, String writerFormat, File file) throws IOException {
+        if (!file.exists() && !ImageIO.write(image, writerFormat, file)) {
+            throw new IOException("Нет ImageWriter для " + writerFormat);
+        }
+        filesByFormat.computeIfAbsent(format, k -> new ArrayList<>()).add(file);
+    }
+
+    private static BufferedImage createImage(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, ((x * 255 / width) << 16) | ((y * 255 / height) << 8) | ((x ^ y) & 0xFF));
+            }
+        }
+        return image;
+    }
+
+    // 24-битный PCX (3 плоскости по 8 бит) с RLE-сжатием сплошных строк
+    private static void writePcx(File file, int width, int height) throws IOException {
+        if (file.exists()) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            byte[] header = new byte[128];
+            header[0] = 0x0A;
+            header[1] = 5;
+            header[2] = 1;
+            header[3] = 8;
+            putShort(header, 8, width - 1);
+            putShort(header, 10, height - 1);
+            putShort(header, 12, 300);
+            putShort(header, 14, 300);
+            header[65] = 3;
+            putShort(header, 66, width + (width & 1));
+            putShort(header, 68, 1);
+            out.write(header);
+            int bytesPerLine = width + (width & 1);
+            for (int line = 0; line < height * 3; line++) {
+                for (int remaining = bytesPerLine; remaining > 0; remaining -= 63) {
+                    out.write(0xC0 | Math.min(63, remaining));
+                    out.write(line & 0xFF);
+                }
+            }
+        }
+    }
+
+    private static void putShort(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+    }
+}
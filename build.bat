@@ -13,9 +13,66 @@ javac -encoding UTF-8 -d build ^
     src/ImageInfoApp.java ^
     src/ControlPanel.java ^
     src/ImageInfoPanel.java ^
+    src/ImageInfoTableModel.java ^
+    src/ResultStore.java ^
+    src/StringTable.java ^
+    src/ImageInfoRowSorter.java ^
+    src/ImageInfoFilter.java ^
+    src/ResultPublisher.java ^
+    src/ScanListener.java ^
+    src/ScanSummary.java ^
+    src/SwingScanListener.java ^
+    src/ImageInfoCli.java ^
     src/ImageInfoProcessor.java ^
+    src/ScanExecutionMode.java ^
+    src/ConcurrencyController.java ^
+    src/ScanStatistics.java ^
+    src/LatencyHistogram.java ^
+    src/PipelineStage.java ^
+    src/StageTimings.java ^
+    src/StageLatency.java ^
     src/ImageInfo.java ^
-    src/StatusPanel.java
+    src/StatusPanel.java ^
+    src/DiagnosticsPanel.java ^
+    src/DiagnosticsReport.java ^
+    src/DirectoryCrawler.java ^
+    src/DiscoveredFile.java ^
+    src/ScanCache.java ^
+    src/RecordIndex.java ^
+    src/RecordFile.java ^
+    src/HeaderParser.java ^
+    src/HeaderParserEngine.java ^
+    src/ImageReaderPool.java ^
+    src/XxHash64.java ^
+    src/DuplicateGroup.java ^
+    src/DuplicateDetector.java ^
+    src/FolderWatcher.java ^
+    src/PathIndex.java ^
+    src/ScanCheckpoint.java ^
+    src/ScanScheduler.java ^
+    src/PriorityScanQueue.java ^
+    src/FileBudget.java ^
+    src/FileBudgetExceededException.java ^
+    src/BudgetedHeaderSource.java ^
+    src/BudgetedImageInputStream.java ^
+    src/FileWatchdog.java ^
+    src/QuarantineEntry.java ^
+    src/QuarantinePanel.java ^
+    src/ThumbnailKey.java ^
+    src/ThumbnailCache.java ^
+    src/ThumbnailService.java ^
+    src/ThumbnailRenderer.java ^
+    src/HeaderReadMode.java ^
+    src/HeaderSource.java ^
+    src/StreamHeaderSource.java ^
+    src/ChannelHeaderSource.java ^
+    src/JpegHeaderParser.java ^
+    src/PngHeaderParser.java ^
+    src/GifHeaderParser.java ^
+    src/BmpHeaderParser.java ^
+    src/TiffHeaderParser.java ^
+    src/TiffDirectoryReader.java ^
+    src/PcxHeaderParser.java
 
 if errorlevel 1 (
     echo Compilation error!
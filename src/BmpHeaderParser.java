@@ -0,0 +1,52 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class BmpHeaderParser implements HeaderParser {
+    @Override
+    public String getFormatName() {
+        return "BMP";
+    }
+
+    @Override
+    public boolean matches(ByteBuffer header) {
+        return header.limit() >= 2 && header.get(0) == 'B' && header.get(1) == 'M';
+    }
+
+    @Override
+    public boolean parse(HeaderSource source, ImageInfo info) {
+        ByteBuffer header = source.prefix();
+        if (header.limit() < 54) {
+            return false;
+        }
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        int width = header.getInt(18);
+        int height = Math.abs(header.getInt(22)); // Отрицательная высота - сканирование сверху вниз
+        int bitsPerPixel = header.getShort(28) & 0xFFFF;
+        int compression = header.getInt(30);
+        // biXPelsPerMeter есть начиная с BITMAPINFOHEADER (40 байт)
+        int headerSize = header.getInt(14);
+        int pixelsPerMeter = headerSize >= 40 ? header.getInt(38) : 0;
+
+        info.setWidth(width);
+        info.setHeight(height);
+        info.setColorDepth(bitsPerPixel);
+        info.setCompression(getCompression(compression));
+        if (pixelsPerMeter > 0) {
+            info.setResolution(pixelsPerMeter * 0.0254);
+        }
+        return width > 0 && height > 0;
+    }
+
+    private String getCompression(int compression) {
+        switch (compression) {
+            case 0: return "BI_RGB (без сжатия)";
+            case 1: return "BI_RLE8";
+            case 2: return "BI_RLE4";
+            case 3: return "BI_BITFIELDS";
+            case 4: return "BI_JPEG";
+            case 5: return "BI_PNG";
+            default: return "Неизвестно (" + compression + ")";
+        }
+    }
+}
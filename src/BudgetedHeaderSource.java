@@ -0,0 +1,42 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// HeaderSource с учётом прочитанного в FileBudget. Префикс уже прочитан при открытии
+// и учитывается сразу
+public class BudgetedHeaderSource implements HeaderSource {
+    private final HeaderSource source;
+    private final FileBudget budget;
+
+    public BudgetedHeaderSource(HeaderSource source, FileBudget budget) throws IOException {
+        this.source = source;
+        this.budget = budget;
+        budget.charge(source.prefix().limit());
+    }
+
+    @Override
+    public long size() {
+        return source.size();
+    }
+
+    @Override
+    public ByteBuffer prefix() {
+        return source.prefix();
+    }
+
+    @Override
+    public ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = source.read(position, length);
+        budget.charge(buffer.limit());
+        return buffer;
+    }
+
+    @Override
+    public void enableRandomAccess() throws IOException {
+        source.enableRandomAccess();
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,29 @@
+import javax.imageio.stream.FileImageInputStream;
+import java.io.File;
+import java.io.IOException;
+
+// Поток для запасного пути через ImageIO с учётом прочитанного в FileBudget:
+// ImageReader, застрявший на повреждённом файле, получает исключение на очередном чтении
+public class BudgetedImageInputStream extends FileImageInputStream {
+    private final FileBudget budget;
+
+    public BudgetedImageInputStream(File file, FileBudget budget) throws IOException {
+        super(file);
+        this.budget = budget;
+    }
+
+    @Override
+    public int read() throws IOException {
+        budget.charge(1);
+        return super.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            budget.charge(n);
+        }
+        return n;
+    }
+}
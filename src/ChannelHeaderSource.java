@@ -0,0 +1,116 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Позиционное чтение FileChannel в переиспользуемые direct-буферы. Буферы берутся из общего
+// пула на время жизни источника (а не закрепляются за потоком), поэтому их число ограничено
+// числом одновременно открытых файлов и при обработке в виртуальных потоках
+public class ChannelHeaderSource implements HeaderSource {
+    static final int READ_BUFFER_SIZE = 64 * 1024;
+    // Окно отображения в режиме MMAP: отображается только участок вокруг читаемой позиции,
+    // а не весь файл. Отображение освобождается лишь сборщиком мусора (в Windows файл до этого
+    // нельзя переименовать или удалить), поэтому окно небольшое, а режим не используется по умолчанию
+    static final int MAP_WINDOW_SIZE = 1024 * 1024;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> PREFIX_BUFFERS = new ConcurrentLinkedQueue<>();
+    private static final ConcurrentLinkedQueue<ByteBuffer> READ_BUFFERS = new ConcurrentLinkedQueue<>();
+
+    private final FileChannel channel;
+    private final long size;
+    private final boolean mappingAllowed;
+    private final ByteBuffer prefix;
+    private final ByteBuffer readBuffer;
+    private boolean randomAccess;
+    private MappedByteBuffer mapped;
+    private long mappedStart;
+    private boolean closed;
+
+    public ChannelHeaderSource(File file, long size, boolean mappingAllowed) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.size = size;
+        this.mappingAllowed = mappingAllowed;
+        this.prefix = acquire(PREFIX_BUFFERS, HeaderParserEngine.PREFIX_SIZE);
+        this.readBuffer = acquire(READ_BUFFERS, READ_BUFFER_SIZE);
+        try {
+            prefix.clear().limit((int) Math.min(prefix.capacity(), size));
+            readFully(prefix, 0);
+            prefix.flip();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public ByteBuffer prefix() {
+        return prefix;
+    }
+
+    @Override
+    public void enableRandomAccess() {
+        randomAccess = mappingAllowed && size > prefix.limit();
+    }
+
+    @Override
+    public ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = readBuffer;
+        int available = (int) Math.max(0, Math.min(Math.min(length, buffer.capacity()), size - position));
+        buffer.clear().limit(available);
+
+        if (position + available <= prefix.limit()) {
+            buffer.put(0, prefix, (int) position, available);
+        } else if (randomAccess && available > 0) {
+            mapWindow(position, available);
+            buffer.put(0, mapped, (int) (position - mappedStart), available);
+        } else {
+            readFully(buffer, position);
+            buffer.flip();
+        }
+        return buffer;
+    }
+
+    // Переотображает окно, если участок [position, position + length) в него не попадает
+    private void mapWindow(long position, int length) throws IOException {
+        if (mapped != null && position >= mappedStart && position + length <= mappedStart + mapped.capacity()) {
+            return;
+        }
+        mappedStart = position;
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.max(length, Math.min(MAP_WINDOW_SIZE, size - position)));
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true; // Буферы возвращаются в пул ровно один раз
+        mapped = null;
+        PREFIX_BUFFERS.offer(prefix);
+        READ_BUFFERS.offer(readBuffer);
+        channel.close();
+    }
+
+    private static ByteBuffer acquire(ConcurrentLinkedQueue<ByteBuffer> pool, int capacity) {
+        ByteBuffer buffer = pool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(capacity);
+    }
+}
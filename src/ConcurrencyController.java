@@ -0,0 +1,188 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Ограничивает число одновременно обрабатываемых файлов и в адаптивном режиме подбирает его
+// по наблюдаемой пропускной способности (файлов/с) и задержке чтения одного файла.
+// Восхождение к вершине: уровень меняется в одну сторону, пока пропускная способность растёт,
+// при падении направление меняется; резкий рост задержки без выигрыша - мультипликативное снижение
+public class ConcurrencyController {
+    private static final long SAMPLE_INTERVAL_MS = 500;
+    // Меньше файлов за интервал - замер недостоверен, интервал продлевается
+    private static final int MIN_SAMPLE_FILES = 20;
+    // Изменение пропускной способности в пределах 5% считается шумом
+    private static final double THROUGHPUT_TOLERANCE = 0.05;
+    // Задержка выше базовой в 3 раза - очередь на диске, уровень снижается на четверть
+    private static final double LATENCY_LIMIT = 3.0;
+
+    private final LimitSemaphore permits;
+    private final int minLevel;
+    private final int maxLevel;
+    private final boolean adaptive;
+    private final LongAdder completedFiles = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private ScheduledExecutorService sampler;
+    private final Object pauseLock = new Object();
+    private volatile boolean paused;
+    // Замер, захвативший паузу, не показателен и отбрасывается
+    private volatile boolean pausedSinceSample;
+
+    private volatile int level;
+    private volatile double throughput;
+    private int direction = 1;
+    private double lastThroughput;
+    private double baselineLatency;
+    private long sampleStart;
+
+    public ConcurrencyController(int initialLevel, int minLevel, int maxLevel, boolean adaptive) {
+        this.minLevel = Math.max(1, minLevel);
+        this.maxLevel = Math.max(this.minLevel, maxLevel);
+        this.level = Math.max(this.minLevel, Math.min(this.maxLevel, initialLevel));
+        this.adaptive = adaptive;
+        this.permits = new LimitSemaphore(level);
+    }
+
+    // Адаптивный режим включён по умолчанию, отключается -Dimageinfo.adaptive=off
+    public static boolean adaptiveFromSystemProperty() {
+        return !"off".equalsIgnoreCase(System.getProperty("imageinfo.adaptive"));
+    }
+
+    public void start() {
+        sampleStart = System.nanoTime();
+        if (!adaptive) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "concurrency-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    public void acquire() throws InterruptedException {
+        if (paused) {
+            synchronized (pauseLock) {
+                while (paused) {
+                    pauseLock.wait();
+                }
+            }
+        }
+        permits.acquire();
+    }
+
+    // На паузе новые файлы не начинаются; уже начатые дорабатываются
+    public void setPaused(boolean paused) {
+        synchronized (pauseLock) {
+            this.paused = paused;
+            if (paused) {
+                pausedSinceSample = true;
+            }
+            pauseLock.notifyAll();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    // latency - время обработки одного файла
+    public void release(long latency) {
+        permits.release();
+        completedFiles.increment();
+        latencyNanos.add(latency);
+    }
+
+    // Разрешение возвращается без замера (файл не обрабатывался)
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    // Файлов в секунду за последний интервал замера
+    public double getThroughput() {
+        return throughput;
+    }
+
+    private void sample() {
+        if (pausedSinceSample) {
+            pausedSinceSample = paused;
+            completedFiles.reset();
+            latencyNanos.reset();
+            sampleStart = System.nanoTime();
+            return;
+        }
+        long count = completedFiles.sum();
+        if (count < MIN_SAMPLE_FILES) {
+            return;
+        }
+        long totalLatency = latencyNanos.sum();
+        completedFiles.add(-count);
+        latencyNanos.add(-totalLatency);
+        long now = System.nanoTime();
+        double seconds = (now - sampleStart) / 1e9;
+        double latency = totalLatency / (double) count;
+        sampleStart = now;
+
+        double current = count / seconds;
+        throughput = current;
+        if (baselineLatency == 0 || latency < baselineLatency) {
+            baselineLatency = latency;
+        }
+
+        int step = Math.max(1, level / 8);
+        int next;
+        if (latency > baselineLatency * LATENCY_LIMIT && current <= lastThroughput * (1 + THROUGHPUT_TOLERANCE)) {
+            next = level * 3 / 4;
+            direction = -1;
+        } else {
+            if (lastThroughput > 0 && current < lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+                direction = -direction; // Стало хуже - идём в другую сторону
+            }
+            next = level + direction * step;
+        }
+        next = Math.max(minLevel, Math.min(maxLevel, next));
+        if (next == minLevel || next == maxLevel) {
+            direction = next == minLevel ? 1 : -1; // От границы - только обратно
+        }
+        lastThroughput = current;
+        setLevel(next);
+    }
+
+    private synchronized void setLevel(int next) {
+        int delta = next - level;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reducePermits(-delta); // Занятые разрешения просто не вернутся в оборот
+        }
+        level = next;
+    }
+
+    // reducePermits в Semaphore защищён
+    private static class LimitSemaphore extends Semaphore {
+        LimitSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -10,9 +10,14 @@ public class ControlPanel extends JPanel {
 
     private JButton selectFolderBtn;
     private JButton stopBtn;
+    private JButton pauseBtn;
     private JTextField folderPathField;
     private JLabel fileCountLabel;
     private JLabel supportedFormatsLabel;
+    private JCheckBox sniffAllBox;
+    private JCheckBox duplicatesBox;
+    private JCheckBox watchBox;
+    private JCheckBox resumeBox;
 
     public ControlPanel(ImageInfoProcessor processor, ImageInfoPanel infoPanel, ImageInfoApp app) {
         this.processor = processor;
@@ -52,6 +57,19 @@ public class ControlPanel extends JPanel {
         stopBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
         stopBtn.setEnabled(false);
 
+        // Кнопка паузы - ОРАНЖЕВАЯ
+        pauseBtn = new JButton("⏸ ПАУЗА");
+        pauseBtn.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        pauseBtn.setBackground(new Color(235, 150, 40));
+        pauseBtn.setForeground(Color.WHITE);
+        pauseBtn.setFocusPainted(false);
+        pauseBtn.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(200, 120, 20), 2),
+                BorderFactory.createEmptyBorder(12, 25, 12, 25)
+        ));
+        pauseBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        pauseBtn.setEnabled(false);
+
         // Поле пути - ЧЕТКОЕ и ЯСНОЕ
         folderPathField = new JTextField();
         folderPathField.setEditable(false);
@@ -78,6 +96,30 @@ public class ControlPanel extends JPanel {
                 + "✓ BMP<br>"
                 + "✓ PNG<br>"
                 + "✓ PCX</span></div></html>");
+
+        // Файлы с другим расширением или без него тоже открываются; формат - по сигнатуре
+        sniffAllBox = new JCheckBox("Искать изображения среди всех файлов");
+        sniffAllBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        sniffAllBox.setBackground(new Color(240, 245, 255));
+        sniffAllBox.setFocusPainted(false);
+
+        // Сравнение содержимого файлов после разбора заголовков
+        duplicatesBox = new JCheckBox("Искать дубликаты");
+        duplicatesBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        duplicatesBox.setBackground(new Color(240, 245, 255));
+        duplicatesBox.setFocusPainted(false);
+
+        // После сканирования таблица обновляется по событиям файловой системы
+        watchBox = new JCheckBox("Следить за изменениями в папке");
+        watchBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        watchBox.setBackground(new Color(240, 245, 255));
+        watchBox.setFocusPainted(false);
+
+        // Снятый флажок - сканирование папки с начала, контрольная точка удаляется
+        resumeBox = new JCheckBox("Продолжать прерванное сканирование", processor.isCheckpointEnabled());
+        resumeBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        resumeBox.setBackground(new Color(240, 245, 255));
+        resumeBox.setFocusPainted(false);
     }
 
     private void setupLayout() {
@@ -122,6 +164,13 @@ public class ControlPanel extends JPanel {
                 BorderFactory.createEmptyBorder(10, 10, 10, 10)
         ));
         formatsPanel.add(supportedFormatsLabel, BorderLayout.CENTER);
+        JPanel optionsPanel = new JPanel(new GridLayout(4, 1));
+        optionsPanel.setBackground(new Color(240, 245, 255));
+        optionsPanel.add(sniffAllBox);
+        optionsPanel.add(duplicatesBox);
+        optionsPanel.add(watchBox);
+        optionsPanel.add(resumeBox);
+        formatsPanel.add(optionsPanel, BorderLayout.SOUTH);
 
         // Сборка всех компонентов
         add(folderPanel);
@@ -132,6 +181,8 @@ public class ControlPanel extends JPanel {
         add(Box.createVerticalStrut(20));
         add(selectFolderBtn);
         add(Box.createVerticalStrut(10));
+        add(pauseBtn);
+        add(Box.createVerticalStrut(10));
         add(stopBtn);
         add(Box.createVerticalGlue());
     }
@@ -139,6 +190,11 @@ public class ControlPanel extends JPanel {
     private void setupListeners() {
         selectFolderBtn.addActionListener(e -> selectFolder());
         stopBtn.addActionListener(e -> stopProcessing());
+        pauseBtn.addActionListener(e -> togglePause());
+        sniffAllBox.addActionListener(e -> processor.setSniffAllFiles(sniffAllBox.isSelected()));
+        duplicatesBox.addActionListener(e -> processor.setDuplicateDetection(duplicatesBox.isSelected()));
+        watchBox.addActionListener(e -> processor.setWatchEnabled(watchBox.isSelected()));
+        resumeBox.addActionListener(e -> processor.setCheckpointEnabled(resumeBox.isSelected()));
 
         // Эффекты наведения для кнопок
         selectFolderBtn.addMouseListener(new java.awt.event.MouseAdapter() {
@@ -194,6 +250,7 @@ public class ControlPanel extends JPanel {
             folderPathField.setText(selectedFolder.getAbsolutePath());
             fileCountLabel.setText("<html><b>СТАТУС:</b> Обработка...</html>");
             stopBtn.setEnabled(true);
+            pauseBtn.setEnabled(true);
             selectFolderBtn.setEnabled(false);
 
             // Запуск обработки
@@ -201,6 +258,7 @@ public class ControlPanel extends JPanel {
                 processor.processFolder(selectedFolder);
                 SwingUtilities.invokeLater(() -> {
                     selectFolderBtn.setEnabled(true);
+                    resetPauseButton();
                 });
             }).start();
         }
@@ -209,8 +267,25 @@ public class ControlPanel extends JPanel {
     private void stopProcessing() {
         processor.shutdown();
         stopBtn.setEnabled(false);
+        resetPauseButton();
         fileCountLabel.setText("<html><b>СТАТУС:</b> Остановлено пользователем</html>");
-        app.getStatusPanel().updateStatus("Обработка остановлена", "warning");
+        app.getStatusPanel().updateStatus(processor.isCheckpointEnabled()
+                ? "Обработка остановлена; при повторном выборе папки сканирование продолжится"
+                : "Обработка остановлена", "warning");
+    }
+
+    private void togglePause() {
+        boolean paused = !processor.isPaused();
+        processor.setPaused(paused);
+        pauseBtn.setText(processor.isPaused() ? "▶ ПРОДОЛЖИТЬ" : "⏸ ПАУЗА");
+        fileCountLabel.setText(processor.isPaused()
+                ? "<html><b>СТАТУС:</b> Пауза</html>"
+                : "<html><b>СТАТУС:</b> Обработка...</html>");
+    }
+
+    private void resetPauseButton() {
+        pauseBtn.setEnabled(false);
+        pauseBtn.setText("⏸ ПАУЗА");
     }
 
     public void updateFileCount(int count) {
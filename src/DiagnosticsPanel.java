@@ -0,0 +1,123 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+// Панель диагностики под строкой статуса: задержки этапов обработки по форматам
+// (p50/p99/максимум, самый медленный файл) и экспорт отчёта JSON
+public class DiagnosticsPanel extends JPanel {
+    private static final int REFRESH_INTERVAL_MS = 1000;
+    private static final String[] COLUMNS = {
+            "Этап", "Формат", "Файлов", "p50, мс", "p99, мс", "Макс., мс", "Самый медленный файл"
+    };
+
+    private final ImageInfoProcessor processor;
+    private JToggleButton toggleBtn;
+    private JButton exportBtn;
+    private DefaultTableModel tableModel;
+    private JScrollPane tableScroll;
+    private Timer refreshTimer;
+
+    public DiagnosticsPanel(ImageInfoProcessor processor) {
+        this.processor = processor;
+        initializeComponents();
+        setupLayout();
+    }
+
+    private void initializeComponents() {
+        setBackground(new Color(235, 238, 248));
+
+        toggleBtn = new JToggleButton("▸ ДИАГНОСТИКА");
+        toggleBtn.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        toggleBtn.setFocusPainted(false);
+        toggleBtn.addActionListener(e -> setExpanded(toggleBtn.isSelected()));
+
+        exportBtn = new JButton("Экспорт JSON...");
+        exportBtn.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        exportBtn.setFocusPainted(false);
+        exportBtn.addActionListener(e -> exportReport());
+
+        tableModel = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(tableModel);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        table.setRowHeight(22);
+        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getColumnModel().getColumn(6).setPreferredWidth(400);
+
+        tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(0, 170));
+        tableScroll.setVisible(false);
+
+        // Обновляется, только пока панель раскрыта
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+    }
+
+    private void setupLayout() {
+        setLayout(new BorderLayout(0, 5));
+        setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+
+        JPanel header = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        header.setOpaque(false);
+        header.add(toggleBtn);
+        header.add(exportBtn);
+
+        add(header, BorderLayout.NORTH);
+        add(tableScroll, BorderLayout.CENTER);
+    }
+
+    private void setExpanded(boolean expanded) {
+        toggleBtn.setText((expanded ? "▾" : "▸") + " ДИАГНОСТИКА");
+        tableScroll.setVisible(expanded);
+        if (expanded) {
+            refresh();
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+        revalidate();
+    }
+
+    private void refresh() {
+        tableModel.setRowCount(0);
+        for (StageLatency latency : processor.getStatistics().getStageLatencies()) {
+            LatencyHistogram histogram = latency.getHistogram();
+            tableModel.addRow(new Object[] {
+                    latency.getStage().getTitle(),
+                    latency.getFormat(),
+                    histogram.getCount(),
+                    formatMillis(histogram.getPercentile(50)),
+                    formatMillis(histogram.getPercentile(99)),
+                    formatMillis(histogram.getMax()),
+                    latency.getSlowestFile()
+            });
+        }
+    }
+
+    private void exportReport() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("СОХРАНИТЬ ОТЧЁТ ДИАГНОСТИКИ");
+        fileChooser.setSelectedFile(new File("imageinfo-report.json"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        try {
+            DiagnosticsReport.write(file, processor.getStatistics());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Не удалось сохранить отчёт: " + e.getMessage(),
+                    "Ошибка", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1e6);
+    }
+}
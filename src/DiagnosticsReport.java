@@ -0,0 +1,61 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+
+// Отчёт о задержках этапов сканирования в формате JSON
+public class DiagnosticsReport {
+    private DiagnosticsReport() {
+    }
+
+    public static void write(File file, ScanStatistics statistics) throws IOException {
+        Files.write(file.toPath(), toJson(statistics).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String toJson(ScanStatistics statistics) {
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\n");
+        json.append("  \"files\": ").append(statistics.getFilesProcessed()).append(",\n");
+        json.append("  \"errors\": ").append(statistics.getErrors()).append(",\n");
+        json.append("  \"cacheHits\": ").append(statistics.getCacheHits()).append(",\n");
+        json.append("  \"skipped\": ").append(statistics.getFilesSkipped()).append(",\n");
+        json.append("  \"bytes\": ").append(statistics.getBytesProcessed()).append(",\n");
+        json.append("  \"elapsedSeconds\": ").append(format(statistics.getElapsedSeconds())).append(",\n");
+
+        json.append("  \"formats\": {");
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : statistics.getFormatCounts().entrySet()) {
+            json.append(first ? "" : ", ");
+            ImageInfoCli.appendJson(json, entry.getKey());
+            json.append(": ").append(entry.getValue());
+            first = false;
+        }
+        json.append("},\n");
+
+        json.append("  \"stages\": [");
+        first = true;
+        for (StageLatency latency : statistics.getStageLatencies()) {
+            LatencyHistogram histogram = latency.getHistogram();
+            json.append(first ? "\n" : ",\n");
+            json.append("    {\"stage\": \"").append(latency.getStage().getKey()).append("\", \"format\": ");
+            ImageInfoCli.appendJson(json, latency.getFormat());
+            json.append(", \"count\": ").append(histogram.getCount());
+            json.append(", \"meanMs\": ").append(format(histogram.getMean() / 1e6));
+            json.append(", \"p50Ms\": ").append(format(histogram.getPercentile(50) / 1e6));
+            json.append(", \"p99Ms\": ").append(format(histogram.getPercentile(99) / 1e6));
+            json.append(", \"maxMs\": ").append(format(histogram.getMax() / 1e6));
+            json.append(", \"slowest\": ");
+            ImageInfoCli.appendJson(json, latency.getSlowestFile());
+            json.append('}');
+            first = false;
+        }
+        json.append(first ? "]\n" : "\n  ]\n");
+        return json.append("}\n").toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,153 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+// Параллельный обход дерева каталогов: каждый каталог читается отдельной задачей ForkJoin,
+// найденные файлы сразу передаются обработчикам через ограниченную очередь.
+// Символические ссылки на файлы и каталоги разыменовываются; каталог, уже встреченный
+// по другому пути (ссылка на предка или второй путь к тому же каталогу), не обходится повторно
+public class DirectoryCrawler {
+    // Обход упирается в задержки файловой системы, поэтому потоков больше, чем ядер
+    private static final int CRAWLER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private final BlockingQueue<DiscoveredFile> queue;
+    private final Predicate<Path> fileFilter;
+    private final ScanStatistics statistics;
+    private final AtomicInteger discoveredFiles = new AtomicInteger();
+    private final ForkJoinPool pool = new ForkJoinPool(CRAWLER_THREADS);
+    private volatile boolean stopped = false;
+    // Ключи обойдённых каталогов (fileKey или реальный путь)
+    private final Set<Object> visitedDirectories = ConcurrentHashMap.newKeySet();
+    // Исход файла из прерванного сканирования: true - файл не менялся, обрабатывать его не нужно
+    private Predicate<DiscoveredFile> restore;
+
+    public DirectoryCrawler(BlockingQueue<DiscoveredFile> queue, Predicate<Path> fileFilter, ScanStatistics statistics) {
+        this.queue = queue;
+        this.fileFilter = fileFilter;
+        this.statistics = statistics;
+    }
+
+    // Вызывается до crawl()
+    public void setRestore(Predicate<DiscoveredFile> restore) {
+        this.restore = restore;
+    }
+
+    // Блокирует до окончания (или отмены) обхода
+    public void crawl(Path root) {
+        try {
+            visitedDirectories.add(directoryKey(root, Files.readAttributes(root, BasicFileAttributes.class)));
+        } catch (IOException e) {
+            // Корень прочитает задача обхода и сообщит об ошибке
+        }
+        try {
+            pool.invoke(new DirectoryTask(root));
+        } catch (CancellationException e) {
+            // Обход отменён через cancel()
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void cancel() {
+        stopped = true;
+        pool.shutdownNow();
+    }
+
+    public int getDiscoveredCount() {
+        return discoveredFiles.get();
+    }
+
+    private void listDirectory(Path directory, List<DirectoryTask> subdirectories) {
+        long start = System.nanoTime();
+        long waited = 0; // Ожидание места в очереди не относится ко времени обхода
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (stopped) {
+                    return;
+                }
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue; // Файл удалён или недоступен, либо ссылка никуда не ведёт
+                }
+
+                if (attributes.isDirectory()) {
+                    Object key;
+                    try {
+                        key = directoryKey(entry, attributes);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (visitedDirectories.add(key)) {
+                        subdirectories.add(new DirectoryTask(entry));
+                    }
+                } else if (attributes.isRegularFile() && fileFilter.test(entry)) {
+                    // Размер и время изменения уже прочитаны - обработчикам не нужен повторный stat
+                    DiscoveredFile file = new DiscoveredFile(entry.toFile(), attributes.size(),
+                            attributes.lastModifiedTime().toMillis());
+                    if (restore != null && restore.test(file)) {
+                        continue;
+                    }
+                    discoveredFiles.incrementAndGet();
+                    long enqueueStart = System.nanoTime();
+                    enqueue(file);
+                    waited += System.nanoTime() - enqueueStart;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Не удалось прочитать каталог " + directory + ": " + e.getMessage());
+        }
+        statistics.recordStage(PipelineStage.DISCOVER, "*", System.nanoTime() - start - waited, directory.toString());
+    }
+
+    // Идентификатор каталога в файловой системе; в Windows fileKey нет, и его заменяет реальный путь
+    private static Object directoryKey(Path directory, BasicFileAttributes attributes) throws IOException {
+        Object key = attributes.fileKey();
+        return key != null ? key : directory.toRealPath();
+    }
+
+    // Очередь ограничена: при отставании обработчиков обход приостанавливается
+    private void enqueue(DiscoveredFile file) {
+        try {
+            while (!queue.offer(file, 100, TimeUnit.MILLISECONDS)) {
+                if (stopped) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path directory;
+
+        DirectoryTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            listDirectory(directory, subdirectories);
+            if (!stopped && !subdirectories.isEmpty()) {
+                invokeAll(subdirectories);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+import java.io.File;
+
+// Файл, найденный при обходе, вместе с атрибутами, прочитанными при чтении каталога
+public class DiscoveredFile {
+    private final File file;
+    private final long size;
+    private final long lastModified;
+
+    public DiscoveredFile(File file, long size, long lastModified) {
+        this.file = file;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public File getFile() { return file; }
+
+    public long getSize() { return size; }
+
+    public long getLastModified() { return lastModified; }
+}
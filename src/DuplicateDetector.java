@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Поиск дубликатов без полного чтения большинства файлов:
+// 1. файлы группируются по размеру - файл с уникальным размером не читается вовсе;
+// 2. для совпавших по размеру - xxHash64 первых и последних 64 КБ;
+// 3. только при совпадении частичного хэша - xxHash64 всего содержимого.
+// Файлы до 128 КБ на шаге 2 читаются целиком, и шаг 3 для них не нужен
+public class DuplicateDetector {
+    static final int PARTIAL_BLOCK = 64 * 1024;
+    private static final int FULL_READ_BUFFER = 1024 * 1024;
+
+    // Пути по размеру файла; пополняется обработчиками во время сканирования. Строка на каждый
+    // файл в куче - поэтому поиск дубликатов включается только явно (imageinfo.duplicates)
+    private final Map<Long, List<String>> pathsBySize = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder hashedFiles = new LongAdder();
+    private final LongAdder fullyReadFiles = new LongAdder();
+    private volatile boolean cancelled = false;
+
+    public void add(String path, long size) {
+        if (size <= 0) {
+            return; // Пустые файлы не считаются дубликатами
+        }
+        pathsBySize.compute(size, (key, paths) -> {
+            List<String> result = paths != null ? paths : new ArrayList<>(1);
+            result.add(path);
+            return result;
+        });
+    }
+
+    // Хэширование кандидатов в threads потоков; группы упорядочены по занимаемому лишнему месту
+    public List<DuplicateGroup> findDuplicates(ScanStatistics statistics, int threads) throws InterruptedException {
+        List<Map.Entry<Long, List<String>>> sameSize = new ArrayList<>();
+        for (Map.Entry<Long, List<String>> entry : pathsBySize.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                sameSize.add(entry);
+                candidates.add(entry.getValue().size());
+            }
+        }
+
+        ConcurrentLinkedQueue<DuplicateGroup> found = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        for (Map.Entry<Long, List<String>> entry : sameSize) {
+            executor.submit(() -> found.addAll(resolveSizeGroup(entry.getKey(), entry.getValue(), statistics)));
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            throw e;
+        }
+
+        // Номера групп не зависят от порядка завершения потоков
+        List<DuplicateGroup> groups = new ArrayList<>(found);
+        groups.sort(Comparator.comparingLong(DuplicateGroup::getWastedBytes).reversed()
+                .thenComparing(group -> group.getPaths().get(0)));
+        List<DuplicateGroup> result = new ArrayList<>(groups.size());
+        for (DuplicateGroup group : groups) {
+            result.add(new DuplicateGroup(result.size() + 1, group.getFileSize(), group.getPaths()));
+        }
+        return result;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Файлов с совпадающим размером и сколько из них уже проверено
+    public long getCandidateCount() {
+        return candidates.sum();
+    }
+
+    public long getHashedCount() {
+        return hashedFiles.sum();
+    }
+
+    // Файлов, прочитанных целиком
+    public long getFullyReadCount() {
+        return fullyReadFiles.sum();
+    }
+
+    // Группы файлов одного размера (номер назначается после сортировки всех групп)
+    private List<DuplicateGroup> resolveSizeGroup(long size, List<String> paths, ScanStatistics statistics) {
+        List<List<String>> sameContent = new ArrayList<>();
+        ByteBuffer buffer = acquireBuffer();
+        try {
+            boolean partialIsComplete = size <= 2L * PARTIAL_BLOCK;
+            for (List<String> samePartial : groupByHash(paths, size, false, buffer, statistics)) {
+                if (partialIsComplete) {
+                    sameContent.add(samePartial);
+                } else {
+                    sameContent.addAll(groupByHash(samePartial, size, true, buffer, statistics));
+                }
+            }
+        } finally {
+            buffers.offer(buffer);
+        }
+        List<DuplicateGroup> result = new ArrayList<>(sameContent.size());
+        for (List<String> group : sameContent) {
+            group.sort(null);
+            result.add(new DuplicateGroup(0, size, group));
+        }
+        return result;
+    }
+
+    // Группы из двух и более файлов с одинаковым хэшем; нечитаемые файлы пропускаются
+    private List<List<String>> groupByHash(List<String> paths, long size, boolean full,
+                                           ByteBuffer buffer, ScanStatistics statistics) {
+        Map<Long, List<String>> byHash = new HashMap<>();
+        for (String path : paths) {
+            if (cancelled) {
+                return new ArrayList<>();
+            }
+            long start = System.nanoTime();
+            try {
+                long hash = full ? fullHash(Paths.get(path), buffer) : partialHash(Paths.get(path), size, buffer);
+                byHash.computeIfAbsent(hash, key -> new ArrayList<>()).add(path);
+            } catch (IOException e) {
+                System.err.println("Не удалось прочитать файл для поиска дубликатов " + path + ": " + e.getMessage());
+            }
+            statistics.recordStage(PipelineStage.HASH, full ? "полный" : "частичный", System.nanoTime() - start, path);
+            if (!full) {
+                hashedFiles.increment();
+            }
+        }
+        List<List<String>> result = new ArrayList<>();
+        for (List<String> group : byHash.values()) {
+            if (group.size() > 1) {
+                result.add(group);
+            }
+        }
+        return result;
+    }
+
+    // Первые и последние 64 КБ; для файлов до 128 КБ - всё содержимое, каждый байт один раз
+    private long partialHash(Path path, long size, ByteBuffer buffer) throws IOException {
+        XxHash64 hash = new XxHash64();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long headEnd = Math.min(size, PARTIAL_BLOCK);
+            hashRange(channel, 0, headEnd, buffer, hash);
+            long tailStart = Math.max(headEnd, size - PARTIAL_BLOCK);
+            hashRange(channel, tailStart, size, buffer, hash);
+        }
+        return hash.getValue();
+    }
+
+    private long fullHash(Path path, ByteBuffer buffer) throws IOException {
+        fullyReadFiles.increment();
+        XxHash64 hash = new XxHash64();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            hashRange(channel, 0, channel.size(), buffer, hash);
+        }
+        return hash.getValue();
+    }
+
+    private void hashRange(FileChannel channel, long start, long end, ByteBuffer buffer, XxHash64 hash)
+            throws IOException {
+        long position = start;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break; // Файл укоротился во время чтения
+            }
+            buffer.flip();
+            hash.update(buffer);
+            position += read;
+        }
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(FULL_READ_BUFFER);
+    }
+}
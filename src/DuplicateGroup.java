@@ -0,0 +1,26 @@
+import java.util.List;
+
+// Группа файлов с одинаковым содержимым
+public class DuplicateGroup {
+    private final int id;
+    private final long fileSize;
+    private final List<String> paths;
+
+    public DuplicateGroup(int id, long fileSize, List<String> paths) {
+        this.id = id;
+        this.fileSize = fileSize;
+        this.paths = paths;
+    }
+
+    // Номер группы, начиная с 1
+    public int getId() { return id; }
+
+    public long getFileSize() { return fileSize; }
+
+    public List<String> getPaths() { return paths; }
+
+    // Место, которое занимают лишние копии
+    public long getWastedBytes() {
+        return fileSize * (paths.size() - 1);
+    }
+}
@@ -0,0 +1,34 @@
+// Лимиты обработки одного файла: срок и объём прочитанного. Проверяются при каждом чтении,
+// поэтому разбор, зациклившийся на повреждённом файле, прерывается на ближайшем чтении
+public class FileBudget {
+    // Время сверяется не на каждом чтении, а через столько прочитанных байт
+    private static final long TIME_CHECK_BYTES = 4096;
+
+    private final long maxBytes;
+    private final long deadline;
+    private final long timeoutNanos;
+    private long bytesRead;
+    private long nextTimeCheck;
+
+    // maxBytes или timeoutNanos <= 0 - без ограничения
+    public FileBudget(long maxBytes, long timeoutNanos) {
+        this.maxBytes = maxBytes;
+        this.timeoutNanos = timeoutNanos;
+        this.deadline = System.nanoTime() + timeoutNanos;
+    }
+
+    // Учитывает очередное чтение; один объект используется одним потоком
+    public void charge(long bytes) throws FileBudgetExceededException {
+        bytesRead += bytes;
+        if (maxBytes > 0 && bytesRead > maxBytes) {
+            throw new FileBudgetExceededException(String.format("прочитано больше %d МБ", maxBytes >> 20));
+        }
+        if (timeoutNanos > 0 && bytesRead >= nextTimeCheck) {
+            nextTimeCheck = bytesRead + TIME_CHECK_BYTES;
+            if (System.nanoTime() - deadline > 0) {
+                throw new FileBudgetExceededException(
+                        String.format("превышено время обработки (%.1f с)", timeoutNanos / 1e9));
+            }
+        }
+    }
+}
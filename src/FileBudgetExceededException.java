@@ -0,0 +1,10 @@
+import java.io.IOException;
+
+// Файл превысил лимит FileBudget и отправляется в карантин
+public class FileBudgetExceededException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public FileBudgetExceededException(String reason) {
+        super(reason);
+    }
+}
@@ -0,0 +1,125 @@
+import java.io.Closeable;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Сторож сроков обработки файлов. Файл, обрабатываемый дольше срока, отправляется в карантин,
+// а его поток прерывается (прерывание закрывает FileChannel, FileBudget останавливает
+// зациклившееся чтение). Поток, не вернувшийся и после второго срока (например, застрявший
+// в вычислениях без чтений), считается потерянным: его место в пуле занимает новый
+public class FileWatchdog implements Closeable {
+    private static final long MAX_CHECK_INTERVAL_MS = 250;
+
+    private final long timeoutNanos;
+    private final Consumer<Task> onTimeout;
+    private final Runnable onAbandon;
+    private final Set<Task> running = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService checker;
+
+    // onTimeout и onAbandon вызываются потоком сторожа
+    public FileWatchdog(long timeoutNanos, Consumer<Task> onTimeout, Runnable onAbandon) {
+        this.timeoutNanos = timeoutNanos;
+        this.onTimeout = onTimeout;
+        this.onAbandon = onAbandon;
+        this.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "file-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, Math.min(MAX_CHECK_INTERVAL_MS, TimeUnit.NANOSECONDS.toMillis(timeoutNanos) / 4));
+        checker.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // Вызывается потоком, начинающим обработку файла
+    public Task start(DiscoveredFile file) {
+        Task task = new Task(file, Thread.currentThread());
+        running.add(task);
+        return task;
+    }
+
+    @Override
+    public void close() {
+        checker.shutdownNow();
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        for (Task task : running) {
+            long elapsed = now - task.start;
+            if (elapsed < timeoutNanos) {
+                continue;
+            }
+            boolean timedOut = false;
+            boolean abandoned = false;
+            synchronized (task) {
+                if (task.finished) {
+                    continue;
+                }
+                if (task.state == State.RUNNING) {
+                    task.state = State.TIMED_OUT;
+                    task.thread.interrupt();
+                    timedOut = true;
+                } else if (task.state == State.TIMED_OUT && elapsed >= 2 * timeoutNanos) {
+                    task.state = State.ABANDONED;
+                    abandoned = true;
+                }
+            }
+            if (timedOut) {
+                onTimeout.accept(task);
+            } else if (abandoned) {
+                running.remove(task);
+                onAbandon.run();
+            }
+        }
+    }
+
+    private enum State { RUNNING, TIMED_OUT, ABANDONED }
+
+    public class Task {
+        private final DiscoveredFile file;
+        private final Thread thread;
+        private final long start = System.nanoTime();
+        private State state = State.RUNNING;
+        private boolean finished;
+
+        Task(DiscoveredFile file, Thread thread) {
+            this.file = file;
+            this.thread = thread;
+        }
+
+        public DiscoveredFile getFile() {
+            return file;
+        }
+
+        public long getElapsedNanos() {
+            return System.nanoTime() - start;
+        }
+
+        // Вызывается потоком обработки, как только исход файла известен; повторный вызов ничего не меняет.
+        // false - срок истёк и файл уже в карантине: результат отбрасывается. Прерывание от сторожа снимается
+        public boolean finish() {
+            running.remove(this);
+            synchronized (this) {
+                finished = true;
+                if (state == State.RUNNING) {
+                    return true;
+                }
+                Thread.interrupted();
+                return false;
+            }
+        }
+
+        // Срок истёк: файл записан в карантин сторожем
+        public synchronized boolean isTimedOut() {
+            return state != State.RUNNING;
+        }
+
+        // Поток признан потерянным: его разрешение уже возвращено, место в пуле занято новым потоком
+        public synchronized boolean isAbandoned() {
+            return state == State.ABANDONED;
+        }
+    }
+}
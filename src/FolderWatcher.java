@@ -0,0 +1,223 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+// Наблюдение за деревом каталогов через WatchService. События по одному пути копятся,
+// пока файл не "затихнет" на DEBOUNCE_MS (запись файла даёт серию ENTRY_MODIFY),
+// затем все затихшие пути передаются обработчику одной пачкой.
+// Все структуры используются только потоком наблюдения
+public class FolderWatcher implements Closeable {
+    private static final long DEBOUNCE_MS = 500;
+
+    public interface ChangeHandler {
+        // changed - новые и изменённые файлы, removedFiles - удалённые файлы,
+        // removedDirectories - удалённые (или перемещённые за пределы дерева) каталоги
+        void filesChanged(List<Path> changed, List<Path> removedFiles, List<Path> removedDirectories);
+    }
+
+    private final Path root;
+    private final Predicate<Path> filter;
+    private final ChangeHandler handler;
+    private final long changedSince;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Set<Path> directories = new HashSet<>();
+    // Путь -> время последнего события (System.nanoTime)
+    private final Map<Path, Long> pending = new HashMap<>();
+    private boolean registrationFailed = false;
+    private Thread thread;
+
+    // changedSince - начало сканирования (мс): каталоги регистрируются только после его окончания,
+    // поэтому файлы, изменённые позже, и все файлы каталогов, изменённых позже (например, в каталог
+    // перенесён файл со старым временем), при старте передаются обработчику. 0 - не передаются
+    public FolderWatcher(Path root, Predicate<Path> filter, ChangeHandler handler, long changedSince)
+            throws IOException {
+        this.root = root.toAbsolutePath();
+        this.filter = filter;
+        this.handler = handler;
+        this.changedSince = changedSince;
+        this.watchService = root.getFileSystem().newWatchService();
+    }
+
+    // Каталоги регистрируются уже в потоке наблюдения, чтобы не задерживать вызывающий
+    public void start() {
+        thread = new Thread(this::run, "folder-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Поток наблюдения всё равно завершится
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        registerTree(root, false);
+        try {
+            while (true) {
+                WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(DEBOUNCE_MS / 2, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    handleEvents(key);
+                    key = watchService.poll();
+                }
+                flushQuiet(System.nanoTime());
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Наблюдение остановлено
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка наблюдения за папкой " + root + ": " + e.getMessage());
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        Path directory = keys.get(key);
+        long now = System.nanoTime();
+        if (directory != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // События потеряны: перечитываем весь каталог
+                    registerTree(directory, true);
+                    continue;
+                }
+                Path child = directory.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(child)) {
+                    // Новый или перенесённый в дерево каталог: файлы в нём могли появиться
+                    // раньше, чем он зарегистрирован
+                    registerTree(child, true);
+                } else {
+                    pending.put(child, now);
+                }
+            }
+        }
+        if (!key.reset()) {
+            keys.remove(key); // Каталог удалён
+        }
+    }
+
+    // Передаёт обработчику пути, по которым не было событий DEBOUNCE_MS
+    private void flushQuiet(long now) {
+        List<Path> changed = new ArrayList<>();
+        List<Path> removedFiles = new ArrayList<>();
+        List<Path> removedDirectories = new ArrayList<>();
+        long quietNanos = TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MS);
+        for (Iterator<Map.Entry<Path, Long>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Long> entry = it.next();
+            if (now - entry.getValue() < quietNanos) {
+                continue;
+            }
+            it.remove();
+            Path path = entry.getKey();
+            if (Files.isRegularFile(path)) {
+                if (filter.test(path)) {
+                    changed.add(path);
+                }
+            } else if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (directories.remove(path)) {
+                    directories.removeIf(directory -> directory.startsWith(path));
+                    removedDirectories.add(path);
+                } else if (filter.test(path)) {
+                    removedFiles.add(path);
+                }
+            }
+        }
+        if (!changed.isEmpty() || !removedFiles.isEmpty() || !removedDirectories.isEmpty()) {
+            handler.filesChanged(changed, removedFiles, removedDirectories);
+        }
+    }
+
+    // Регистрирует каталог со всеми подкаталогами; с markFiles - ставит их файлы в очередь,
+    // без него - только файлы, изменённые после changedSince
+    private void registerTree(Path start, boolean markFiles) {
+        long now = System.nanoTime();
+        // Для каждого открытого каталога: изменён ли он после changedSince
+        Deque<Boolean> changedDirectories = new ArrayDeque<>();
+        try {
+            // Ссылки разыменовываются, как и при сканировании; цикл ссылок обрывается в visitFileFailed
+            Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                    new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    register(dir);
+                    changedDirectories.push(isChanged(attrs));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()
+                            && (markFiles || isChanged(attrs) || Boolean.TRUE.equals(changedDirectories.peek()))) {
+                        pending.put(file, now);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                    changedDirectories.pop();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Не удалось обойти каталог " + start + ": " + e.getMessage());
+        }
+    }
+
+    private boolean isChanged(BasicFileAttributes attrs) {
+        return changedSince > 0 && attrs.lastModifiedTime().toMillis() >= changedSince;
+    }
+
+    // Повторная регистрация живого каталога возвращает тот же ключ, поэтому проверка
+    // не нужна; каталог, удалённый и созданный заново до сброса событий, получает новый ключ
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            keys.put(key, dir);
+            directories.add(dir);
+        } catch (IOException e) {
+            // Обычно - исчерпан системный лимит наблюдаемых каталогов (inotify)
+            if (!registrationFailed) {
+                registrationFailed = true;
+                System.err.println("Не удалось наблюдать за каталогом " + dir + ": " + e.getMessage());
+            }
+        }
+    }
+}
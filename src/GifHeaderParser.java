@@ -0,0 +1,44 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class GifHeaderParser implements HeaderParser {
+    @Override
+    public String getFormatName() {
+        return "GIF";
+    }
+
+    @Override
+    public boolean matches(ByteBuffer header) {
+        return header.limit() >= 6
+                && header.get(0) == 'G' && header.get(1) == 'I' && header.get(2) == 'F'
+                && header.get(3) == '8' && (header.get(4) == '7' || header.get(4) == '9')
+                && header.get(5) == 'a';
+    }
+
+    @Override
+    public boolean parse(HeaderSource source, ImageInfo info) {
+        ByteBuffer header = source.prefix();
+        if (header.limit() < 13) {
+            return false;
+        }
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        // Размер из логического дескриптора экрана
+        int width = header.getShort(6) & 0xFFFF;
+        int height = header.getShort(8) & 0xFFFF;
+
+        // Глубина цвета
+        int packed = header.get(10) & 0xFF;
+        int colorDepth = ((packed >> 4) & 0x07) + 1;
+
+        // Количество цветов
+        int colorTableSize = 1 << ((packed & 0x07) + 1);
+
+        info.setWidth(width);
+        info.setHeight(height);
+        info.setColorDepth(colorDepth);
+        info.setAdditionalInfo("Цветов в палитре: " + colorTableSize);
+        info.setCompression("LZW");
+        return width > 0 && height > 0;
+    }
+}
@@ -0,0 +1,19 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public interface HeaderParser {
+    // Название формата для столбца "Формат", определённое по содержимому, а не по расширению
+    String getFormatName();
+
+    // Проверка сигнатуры (magic bytes) по началу файла
+    boolean matches(ByteBuffer header);
+
+    // Заполняет поля ImageInfo из заголовка.
+    // Возвращает true, если размеры изображения определены и ImageIO не нужен
+    boolean parse(HeaderSource source, ImageInfo info) throws IOException;
+
+    // Формат читает структуры, разбросанные по файлу (например, цепочки IFD в TIFF)
+    default boolean needsRandomAccess() {
+        return false;
+    }
+}
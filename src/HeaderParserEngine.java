@@ -0,0 +1,103 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public class HeaderParserEngine {
+    // Сколько байт с начала файла читается за один раз для всех парсеров
+    static final int PREFIX_SIZE = 64 * 1024;
+
+    private volatile HeaderReadMode readMode = HeaderReadMode.fromSystemProperty();
+
+    // Порядок важен: PCX имеет самую слабую сигнатуру, поэтому проверяется последним
+    private final List<HeaderParser> parsers = List.of(
+            new JpegHeaderParser(),
+            new PngHeaderParser(),
+            new GifHeaderParser(),
+            new BmpHeaderParser(),
+            new TiffHeaderParser(),
+            new PcxHeaderParser()
+    );
+
+    public HeaderReadMode getReadMode() {
+        return readMode;
+    }
+
+    public void setReadMode(HeaderReadMode readMode) {
+        this.readMode = readMode;
+    }
+
+    // Читает префикс файла один раз: по сигнатуре в нём выбирается парсер и записывается
+    // формат в info, тот же префикс используется для разбора.
+    // Возвращает false, если формат не распознан или заголовка недостаточно
+    public boolean parse(File file, ImageInfo info) throws IOException {
+        return parse(file, info, new StageTimings());
+    }
+
+    // То же, с замером этапов открытия, определения формата и разбора
+    public boolean parse(File file, ImageInfo info, StageTimings timings) throws IOException {
+        return parse(file, info, timings, null);
+    }
+
+    // budget - лимиты времени и объёма чтения для файла или null
+    public boolean parse(File file, ImageInfo info, StageTimings timings, FileBudget budget) throws IOException {
+        if (info.getFileSize() <= 0) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        try (HeaderSource source = openSource(file, info.getFileSize(), budget)) {
+            long opened = System.nanoTime();
+            timings.add(PipelineStage.OPEN, opened - start);
+            HeaderParser parser = findParser(source.prefix());
+            long probed = System.nanoTime();
+            timings.add(PipelineStage.PROBE, probed - opened);
+            if (parser == null) {
+                return false;
+            }
+            info.setFormat(parser.getFormatName());
+            try {
+                if (parser.needsRandomAccess()) {
+                    source.enableRandomAccess();
+                }
+                return parser.parse(source, info);
+            } finally {
+                timings.add(PipelineStage.PARSE, System.nanoTime() - probed);
+            }
+        }
+    }
+
+    private HeaderSource openSource(File file, long size, FileBudget budget) throws IOException {
+        HeaderSource source = openSource(file, size);
+        if (budget == null) {
+            return source;
+        }
+        try {
+            return new BudgetedHeaderSource(source, budget);
+        } catch (IOException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    private HeaderSource openSource(File file, long size) throws IOException {
+        switch (readMode) {
+            case STREAM:
+                return new StreamHeaderSource(file, size);
+            case MMAP:
+                return new ChannelHeaderSource(file, size, true);
+            case CHANNEL:
+            default:
+                return new ChannelHeaderSource(file, size, false);
+        }
+    }
+
+    private HeaderParser findParser(ByteBuffer header) {
+        for (HeaderParser parser : parsers) {
+            if (parser.matches(header)) {
+                return parser;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+import java.util.Locale;
+
+public enum HeaderReadMode {
+    // java.io: новый byte[] на каждое чтение (прежнее поведение)
+    STREAM,
+    // FileChannel с позиционным чтением в direct-буферы из общего пула: буфер берётся на время
+    // открытия файла, поэтому их число ограничено числом одновременно открытых файлов, а не потоков
+    CHANNEL,
+    // Как CHANNEL, но форматы с произвольным доступом читаются через отображение в память окна
+    // файла (ChannelHeaderSource.MAP_WINDOW_SIZE). Отображение держит файл открытым до сборки мусора:
+    // в Windows его нельзя переименовать или удалить, пока оно не освобождено
+    MMAP;
+
+    // Режим задаётся параметром -Dimageinfo.readMode=stream|channel|mmap
+    public static HeaderReadMode fromSystemProperty() {
+        String value = System.getProperty("imageinfo.readMode");
+        if (value == null || value.isBlank()) {
+            return CHANNEL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Неизвестный режим чтения: " + value + ", используется CHANNEL");
+            return CHANNEL;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Источник байт заголовка одного файла.
+// Возвращаемые буферы переиспользуются: данные действительны до следующего вызова read(),
+// индексы начинаются с 0, порядок байт выставляет парсер
+public interface HeaderSource extends Closeable {
+    // Размер файла в байтах
+    long size();
+
+    // Префикс файла, прочитанный при открытии (не больше HeaderParserEngine.PREFIX_SIZE)
+    ByteBuffer prefix();
+
+    // Чтение length байт с позиции position; у результата limit = фактически прочитано
+    ByteBuffer read(long position, int length) throws IOException;
+
+    // Вызывается, если парсеру нужен произвольный доступ (цепочки IFD в TIFF)
+    default void enableRandomAccess() throws IOException {
+    }
+}
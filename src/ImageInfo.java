@@ -2,6 +2,7 @@ public class ImageInfo {
     private String fileName;
     private String filePath;
     private long fileSize;
+    private long lastModified;
     private String format;
     private int width;
     private int height;
@@ -23,6 +24,9 @@ public class ImageInfo {
     public long getFileSize() { return fileSize; }
     public void setFileSize(long fileSize) { this.fileSize = fileSize; }
 
+    public long getLastModified() { return lastModified; }
+    public void setLastModified(long lastModified) { this.lastModified = lastModified; }
+
     public String getFormat() { return format; }
     public void setFormat(String format) { this.format = format; }
 
@@ -45,10 +49,27 @@ public class ImageInfo {
     public void setAdditionalInfo(String additionalInfo) { this.additionalInfo = additionalInfo; }
 
     public String getDimensions() {
-        return width + " × " + height + " px";
+        return formatDimensions(width, height);
     }
 
     public String getSizeFormatted() {
+        return formatSize(fileSize);
+    }
+
+    public String getResolutionFormatted() {
+        return formatResolution(resolution);
+    }
+
+    public String getColorDepthFormatted() {
+        return formatColorDepth(colorDepth);
+    }
+
+    // Форматирование для таблицы, которая хранит значения без объектов ImageInfo
+    public static String formatDimensions(int width, int height) {
+        return width + " × " + height + " px";
+    }
+
+    public static String formatSize(long fileSize) {
         if (fileSize < 1024) {
             return fileSize + " B";
         } else if (fileSize < 1024 * 1024) {
@@ -58,7 +79,7 @@ public class ImageInfo {
         }
     }
 
-    public String getResolutionFormatted() {
+    public static String formatResolution(double resolution) {
         if (resolution > 0) {
             return String.format("%.1f dpi", resolution);
         } else {
@@ -66,7 +87,7 @@ public class ImageInfo {
         }
     }
 
-    public String getColorDepthFormatted() {
+    public static String formatColorDepth(int colorDepth) {
         return colorDepth + " бит";
     }
 }
\ No newline at end of file
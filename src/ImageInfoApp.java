@@ -1,11 +1,16 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
 
 public class ImageInfoApp extends JFrame {
     private ImageInfoProcessor processor;
     private ImageInfoPanel infoPanel;
     private ControlPanel controlPanel;
     private StatusPanel statusPanel;
+    private DiagnosticsPanel diagnosticsPanel;
+    private QuarantinePanel quarantinePanel;
 
     public ImageInfoApp() {
         // Устанавливаем нативный LookAndFeel
@@ -17,6 +22,14 @@ public class ImageInfoApp extends JFrame {
 
         setTitle("Анализатор графических файлов");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Слушатели вызываются до выхода: сканирование останавливается, файлы результатов удаляются
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                processor.shutdown();
+                infoPanel.close();
+            }
+        });
 
         // Устанавливаем иконку приложения (если есть)
         try {
@@ -43,9 +56,12 @@ public class ImageInfoApp extends JFrame {
         infoPanel = new ImageInfoPanel();
         controlPanel = new ControlPanel(processor, infoPanel, this);
         statusPanel = new StatusPanel();
+        diagnosticsPanel = new DiagnosticsPanel(processor);
+        quarantinePanel = new QuarantinePanel(processor);
 
-        processor.setStatusPanel(statusPanel);
-        processor.setInfoPanel(infoPanel);
+        processor.setListener(new SwingScanListener(processor, infoPanel, statusPanel));
+        infoPanel.setScanFocusListener((directory, format) ->
+                processor.setScanFocus(directory != null ? List.of(directory) : List.of(), format));
     }
 
     private void setupLayout() {
@@ -67,7 +83,12 @@ public class ImageInfoApp extends JFrame {
 
         contentPane.add(headerPanel, BorderLayout.NORTH);
         contentPane.add(centerPanel, BorderLayout.CENTER);
-        contentPane.add(statusPanel, BorderLayout.SOUTH);
+        // Нижняя панель: диагностика, карантин и статус
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.add(diagnosticsPanel, BorderLayout.NORTH);
+        bottomPanel.add(quarantinePanel, BorderLayout.CENTER);
+        bottomPanel.add(statusPanel, BorderLayout.SOUTH);
+        contentPane.add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private JPanel createHeaderPanel() {
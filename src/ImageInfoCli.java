@@ -0,0 +1,409 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Пакетный режим без графического интерфейса: каждый результат сразу пишется
+// в stdout или файл (CSV или JSON Lines), в памяти строки не накапливаются.
+// Итоги выводятся в stderr, чтобы не смешиваться с данными. Кэш сканирования здесь
+// включается только явно (--cache): задания по расписанию не делят файл кэша с окном
+public class ImageInfoCli implements ScanListener {
+    private static final String USAGE =
+            "Использование: java Main --cli <папка> [--format csv|jsonl] [--output <файл>] [--cache <файл>]"
+                    + " [--executor platform|virtual] [--max-in-flight <N>] [--fixed-concurrency]"
+                    + " [--progress] [--report <файл.json>] [--sniff-all] [--duplicates <файл.csv>]"
+                    + " [--no-checkpoint] [--priority-dir <каталог>]... [--file-timeout <с>] [--max-file-mb <N>]";
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    private final Writer out;
+    private final boolean jsonLines;
+    private boolean closed = false;
+    private volatile List<DuplicateGroup> duplicateGroups = Collections.emptyList();
+
+    private ImageInfoCli(Writer out, boolean jsonLines) {
+        this.out = out;
+        this.jsonLines = jsonLines;
+    }
+
+    // Код возврата: 0 - успешно, 1 - были ошибки обработки файлов, 2 - неверные параметры
+    public static int run(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        File folder = null;
+        String format = "csv";
+        String output = null;
+        String cacheFile = null;
+        boolean useCheckpoint = true;
+        ScanExecutionMode executionMode = ScanExecutionMode.fromSystemProperty();
+        int maxInFlight = 0;
+        boolean adaptive = ConcurrencyController.adaptiveFromSystemProperty();
+        boolean progress = false;
+        boolean sniffAll = false;
+        String duplicates = null;
+        String report = null;
+        List<Path> priorityDirectories = new ArrayList<>();
+        long fileTimeoutSeconds = -1;
+        long maxFileMegabytes = -1;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--format") && i + 1 < args.length) {
+                format = args[++i].toLowerCase(Locale.ROOT);
+            } else if (arg.equals("--output") && i + 1 < args.length) {
+                output = args[++i];
+            } else if (arg.equals("--cache") && i + 1 < args.length) {
+                cacheFile = args[++i];
+            } else if (arg.equals("--no-cache")) {
+                cacheFile = null; // Прежний параметр: кэш и так выключен по умолчанию
+            } else if (arg.equals("--priority-dir") && i + 1 < args.length) {
+                priorityDirectories.add(Paths.get(args[++i]).toAbsolutePath());
+            } else if (arg.equals("--no-checkpoint")) {
+                useCheckpoint = false;
+            } else if (arg.equals("--report") && i + 1 < args.length) {
+                report = args[++i];
+            } else if (arg.equals("--duplicates") && i + 1 < args.length) {
+                duplicates = args[++i];
+            } else if (arg.equals("--sniff-all")) {
+                sniffAll = true;
+            } else if (arg.equals("--progress")) {
+                progress = true;
+            } else if (arg.equals("--fixed-concurrency")) {
+                adaptive = false;
+            } else if (arg.equals("--executor") && i + 1 < args.length) {
+                try {
+                    executionMode = ScanExecutionMode.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(USAGE);
+                    return 2;
+                }
+            } else if (arg.equals("--max-in-flight") && i + 1 < args.length) {
+                try {
+                    maxInFlight = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println(USAGE);
+                    return 2;
+                }
+            } else if ((arg.equals("--file-timeout") || arg.equals("--max-file-mb")) && i + 1 < args.length) {
+                try {
+                    long value = Long.parseLong(args[++i]);
+                    if (arg.equals("--file-timeout")) {
+                        fileTimeoutSeconds = value;
+                    } else {
+                        maxFileMegabytes = value;
+                    }
+                } catch (NumberFormatException e) {
+                    System.err.println(USAGE);
+                    return 2;
+                }
+            } else if (!arg.startsWith("--") && folder == null) {
+                folder = new File(arg);
+            } else {
+                System.err.println("Неизвестный параметр: " + arg);
+                System.err.println(USAGE);
+                return 2;
+            }
+        }
+        if (folder == null || !(format.equals("csv") || format.equals("jsonl"))) {
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (!folder.isDirectory()) {
+            System.err.println("Папка не найдена: " + folder);
+            return 2;
+        }
+
+        ImageInfoCli cli;
+        try {
+            OutputStream stream = output != null ? new FileOutputStream(output) : System.out;
+            cli = new ImageInfoCli(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024),
+                    format.equals("jsonl"));
+        } catch (IOException e) {
+            System.err.println("Не удалось открыть файл " + output + ": " + e.getMessage());
+            return 2;
+        }
+
+        ImageInfoProcessor processor = new ImageInfoProcessor();
+        processor.setScanCacheEnabled(cacheFile != null);
+        if (cacheFile != null) {
+            processor.setScanCacheFile(new File(cacheFile));
+        }
+        if (!useCheckpoint) {
+            processor.setCheckpointEnabled(false);
+        }
+        // 0 - без ограничения
+        if (fileTimeoutSeconds >= 0) {
+            processor.setFileTimeout(fileTimeoutSeconds * 1000);
+        }
+        if (maxFileMegabytes >= 0) {
+            processor.setMaxBytesPerFile(maxFileMegabytes * 1024 * 1024);
+        }
+        if (!priorityDirectories.isEmpty()) {
+            processor.setScanFocus(priorityDirectories, null);
+        }
+        processor.setExecutionMode(executionMode);
+        processor.setAdaptiveConcurrency(adaptive);
+        if (maxInFlight > 0) {
+            processor.setMaxInFlight(maxInFlight);
+        }
+        if (sniffAll) {
+            processor.setSniffAllFiles(true);
+        }
+        if (duplicates != null) {
+            processor.setDuplicateDetection(true);
+        }
+        processor.setListener(cli);
+
+        // Ctrl+C: останавливаем обработку и дописываем уже полученные строки
+        Thread shutdownHook = new Thread(() -> {
+            processor.shutdown();
+            cli.close();
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        // Прогресс снимается со статистики раз в секунду, а не по событию на файл
+        ScheduledExecutorService progressReporter = null;
+        if (progress) {
+            progressReporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+            progressReporter.scheduleAtFixedRate(() -> printProgress(processor),
+                    PROGRESS_INTERVAL_MS, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+
+        processor.processFolder(folder);
+        if (progressReporter != null) {
+            progressReporter.shutdownNow();
+        }
+        processor.shutdown();
+        cli.close();
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        if (report != null) {
+            try {
+                DiagnosticsReport.write(new File(report), processor.getStatistics());
+            } catch (IOException e) {
+                System.err.println("Не удалось сохранить отчёт " + report + ": " + e.getMessage());
+            }
+        }
+        if (duplicates != null) {
+            try {
+                writeDuplicates(new File(duplicates), cli.duplicateGroups);
+            } catch (IOException e) {
+                System.err.println("Не удалось сохранить список дубликатов " + duplicates + ": " + e.getMessage());
+            }
+        }
+        return processor.getFailedCount() > 0 ? 1 : 0;
+    }
+
+    // Одна строка на файл: номер группы, размер, путь
+    private static void writeDuplicates(File file, List<DuplicateGroup> groups) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write("group,size,path\n");
+            StringBuilder line = new StringBuilder(160);
+            for (DuplicateGroup group : groups) {
+                for (String path : group.getPaths()) {
+                    line.setLength(0);
+                    line.append(group.getId()).append(',').append(group.getFileSize()).append(',');
+                    appendCsv(line, path).append('\n');
+                    writer.write(line.toString());
+                }
+            }
+        }
+    }
+
+    private static void printProgress(ImageInfoProcessor processor) {
+        ScanStatistics statistics = processor.getStatistics();
+        double seconds = statistics.getElapsedSeconds();
+        System.err.printf(Locale.ROOT, "Обработано %d из %d, ошибок: %d, %.1f файлов/с, %.1f МБ/с, потоков: %d%n",
+                statistics.getFilesProcessed(), processor.getTotalFiles(), statistics.getErrors(),
+                statistics.getFilesProcessed() / seconds, statistics.getBytesProcessed() / seconds / (1024 * 1024),
+                processor.getConcurrencyLevel());
+    }
+
+    @Override
+    public void scanStarted(File folder) {
+        if (!jsonLines) {
+            write("path,name,format,size,width,height,resolution_dpi,color_depth,compression,additional_info\n");
+        }
+    }
+
+    @Override
+    public void fileProcessed(ImageInfo info) {
+        write(jsonLines ? toJsonLine(info) : toCsvLine(info));
+    }
+
+    @Override
+    public void scanRestored(int storedFiles) {
+        System.err.println("Продолжение прерванного сканирования: сохранено результатов " + storedFiles
+                + ", изменённые файлы будут прочитаны заново");
+    }
+
+    @Override
+    public void fileFailed(File file, Exception error) {
+        // Сообщение об ошибке уже выведено обработчиком
+    }
+
+    @Override
+    public void scanFinished(ScanSummary summary) {
+        System.err.printf(Locale.ROOT, "Файлов: %d, ошибок: %d, из кэша: %d, время: %.2f с, скорость: %.1f файлов/с%n",
+                summary.getProcessedFiles(), summary.getFailedFiles(), summary.getCachedFiles(),
+                summary.getElapsedSeconds(), summary.getFilesPerSecond());
+
+        ScanStatistics statistics = summary.getStatistics();
+        StringBuilder formats = new StringBuilder();
+        statistics.getFormatCounts().forEach((format, count) ->
+                formats.append(formats.length() > 0 ? ", " : "").append(format).append('=').append(count));
+        System.err.printf(Locale.ROOT, "Объём: %.1f МБ, форматы: %s%n",
+                statistics.getBytesProcessed() / (1024.0 * 1024.0), formats);
+        if (statistics.getFilesQuarantined() > 0) {
+            System.err.printf(Locale.ROOT, "В карантине (входят в ошибки): %d%n", statistics.getFilesQuarantined());
+        }
+        if (statistics.getFilesRestored() > 0) {
+            System.err.printf(Locale.ROOT, "Из контрольной точки: %d%n", statistics.getFilesRestored());
+        }
+        if (statistics.getFilesSkipped() > 0) {
+            System.err.printf(Locale.ROOT, "Пропущено файлов (не изображения): %d%n", statistics.getFilesSkipped());
+        }
+        duplicateGroups = summary.getDuplicateGroups();
+        if (!duplicateGroups.isEmpty()) {
+            long copies = 0;
+            long wasted = 0;
+            for (DuplicateGroup group : duplicateGroups) {
+                copies += group.getPaths().size() - 1;
+                wasted += group.getWastedBytes();
+            }
+            System.err.printf(Locale.ROOT, "Групп дубликатов: %d, лишних копий: %d, занимают: %.1f МБ%n",
+                    duplicateGroups.size(), copies, wasted / (1024.0 * 1024.0));
+        }
+        LatencyHistogram parseTime = statistics.getParseTime();
+        if (parseTime.getCount() > 0) {
+            System.err.printf(Locale.ROOT, "Разбор файла: p50 %.2f мс, p99 %.2f мс, макс. %.2f мс%n",
+                    parseTime.getPercentile(50) / 1e6, parseTime.getPercentile(99) / 1e6, parseTime.getMax() / 1e6);
+        }
+    }
+
+    // Строки пишутся из нескольких потоков-обработчиков
+    private synchronized void write(String line) {
+        if (closed) {
+            return;
+        }
+        try {
+            out.write(line);
+        } catch (IOException e) {
+            System.err.println("Ошибка записи результата: " + e.getMessage());
+        }
+    }
+
+    private synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Ошибка записи результата: " + e.getMessage());
+        }
+    }
+
+    private static String toCsvLine(ImageInfo info) {
+        StringBuilder line = new StringBuilder(160);
+        appendCsv(line, info.getFilePath()).append(',');
+        appendCsv(line, info.getFileName()).append(',');
+        appendCsv(line, info.getFormat()).append(',');
+        line.append(info.getFileSize()).append(',');
+        line.append(info.getWidth()).append(',');
+        line.append(info.getHeight()).append(',');
+        if (info.getResolution() > 0) {
+            line.append(info.getResolution());
+        }
+        line.append(',');
+        line.append(info.getColorDepth()).append(',');
+        appendCsv(line, info.getCompression()).append(',');
+        appendCsv(line, info.getAdditionalInfo()).append('\n');
+        return line.toString();
+    }
+
+    private static StringBuilder appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    private static String toJsonLine(ImageInfo info) {
+        StringBuilder line = new StringBuilder(200);
+        line.append("{\"path\":");
+        appendJson(line, info.getFilePath());
+        line.append(",\"name\":");
+        appendJson(line, info.getFileName());
+        line.append(",\"format\":");
+        appendJson(line, info.getFormat());
+        line.append(",\"size\":").append(info.getFileSize());
+        line.append(",\"width\":").append(info.getWidth());
+        line.append(",\"height\":").append(info.getHeight());
+        line.append(",\"resolutionDpi\":");
+        if (info.getResolution() > 0) {
+            line.append(info.getResolution());
+        } else {
+            line.append("null");
+        }
+        line.append(",\"colorDepth\":").append(info.getColorDepth());
+        line.append(",\"compression\":");
+        appendJson(line, info.getCompression());
+        line.append(",\"additionalInfo\":");
+        appendJson(line, info.getAdditionalInfo());
+        return line.append("}\n").toString();
+    }
+
+    static void appendJson(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+}
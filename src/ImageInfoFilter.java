@@ -0,0 +1,44 @@
+// Условия фильтра таблицы; нулевые значения границ означают "не задано"
+public class ImageInfoFilter {
+    private final String format;
+    private final long minSize;
+    private final long maxSize;
+    private final int minWidth;
+    private final int minHeight;
+    private final boolean duplicatesOnly;
+
+    public ImageInfoFilter(String format, long minSize, long maxSize, int minWidth, int minHeight,
+                           boolean duplicatesOnly) {
+        this.format = format;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.minWidth = minWidth;
+        this.minHeight = minHeight;
+        this.duplicatesOnly = duplicatesOnly;
+    }
+
+    public boolean isEmpty() {
+        return format == null && minSize <= 0 && maxSize <= 0 && minWidth <= 0 && minHeight <= 0
+                && !duplicatesOnly;
+    }
+
+    public boolean accept(ImageInfoTableModel model, int row) {
+        if (duplicatesOnly && model.getDuplicateGroup(row) == 0) {
+            return false;
+        }
+        if (format != null && !format.equalsIgnoreCase(model.getFormat(row))) {
+            return false;
+        }
+        long size = model.getFileSize(row);
+        if (minSize > 0 && size < minSize) {
+            return false;
+        }
+        if (maxSize > 0 && size > maxSize) {
+            return false;
+        }
+        if (minWidth > 0 && model.getImageWidth(row) < minWidth) {
+            return false;
+        }
+        return minHeight <= 0 || model.getImageHeight(row) >= minHeight;
+    }
+}
@@ -1,16 +1,35 @@
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
 import java.awt.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public class ImageInfoPanel extends JPanel {
+    private static final int ROW_HEIGHT = 30;
+
     private JTable table;
-    private DefaultTableModel tableModel;
-    private List<ImageInfo> imageInfoList;
+    private ImageInfoTableModel tableModel;
+    private ImageInfoRowSorter rowSorter;
     private JLabel countLabel;
+    // Эскизы строятся только для видимых строк; столбец в таблице, пока включён флажок
+    private ThumbnailService thumbnailService;
+    private TableColumn thumbnailColumn;
+    private JCheckBox thumbnailsBox;
+
+    // Панель фильтра
+    private JComboBox<String> formatFilterBox;
+    private JCheckBox duplicatesOnlyBox;
+    private JTextField minSizeField;
+    private JTextField maxSizeField;
+    private JTextField minWidthField;
+    private JTextField minHeightField;
+    // Получает каталог выбранной строки и формат из фильтра (или null): их файлы сканируются первыми
+    private BiConsumer<Path, String> scanFocusListener;
 
     public ImageInfoPanel() {
         initializeComponents();
@@ -19,23 +38,16 @@ public class ImageInfoPanel extends JPanel {
 
     private void initializeComponents() {
         setBackground(new Color(240, 240, 245));
-        imageInfoList = new ArrayList<>();
 
         // Модель таблицы
-        String[] columns = {
-                "Имя файла", "Формат", "Размер файла", "Разрешение (dpi)",
-                "Размеры (пикс.)", "Глубина цвета", "Сжатие", "Доп. информация"
-        };
-
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new ImageInfoTableModel();
 
         table = new JTable(tableModel);
+        // Перерисовка из потока построения: RepaintManager объединяет запросы
+        thumbnailService = new ThumbnailService(table::repaint);
+        rowSorter = new ImageInfoRowSorter(tableModel);
         setupTable();
+        createFilterFields();
 
         // Метка для отображения количества записей
         countLabel = new JLabel("Файлов: 0");
@@ -45,9 +57,19 @@ public class ImageInfoPanel extends JPanel {
 
     private void setupTable() {
         table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        table.setRowHeight(30);
+        table.setRowHeight(ROW_HEIGHT);
         table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        table.setAutoCreateRowSorter(true);
+        // Сортировка по числовым значениям, а не по строкам отображения
+        table.setRowSorter(rowSorter);
+        rowSorter.addRowSorterListener(e -> updateCountLabel());
+        rowSorter.addRowSorterListener(e -> requestVisibleThumbnails());
+        // Слушатели модели вызываются раньше таблицы и сортировщика - запрос после них
+        tableModel.addTableModelListener(e -> SwingUtilities.invokeLater(this::requestVisibleThumbnails));
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                notifyScanFocus();
+            }
+        });
         table.setShowGrid(true);
         table.setGridColor(new Color(200, 200, 220));
 
@@ -75,6 +97,12 @@ public class ImageInfoPanel extends JPanel {
                 JLabel label = (JLabel) super.getTableCellRendererComponent(
                         table, value, isSelected, hasFocus, row, column);
 
+                // Стрелка направления сортировки
+                List<? extends RowSorter.SortKey> keys = table.getRowSorter().getSortKeys();
+                if (!keys.isEmpty() && keys.get(0).getColumn() == table.convertColumnIndexToModel(column)) {
+                    label.setText(value + (keys.get(0).getSortOrder() == SortOrder.DESCENDING ? " ▼" : " ▲"));
+                }
+
                 label.setBackground(new Color(30, 60, 120));
                 label.setForeground(Color.WHITE);
                 label.setFont(new Font("Segoe UI", Font.BOLD, 13));
@@ -109,7 +137,9 @@ public class ImageInfoPanel extends JPanel {
                 }
 
                 // Выравнивание по центру для числовых колонок
-                if (column == 1 || column == 2 || column == 3 || column == 4 || column == 5) {
+                int modelColumn = table.convertColumnIndexToModel(column);
+                if (modelColumn >= ImageInfoTableModel.COLUMN_FORMAT
+                        && modelColumn <= ImageInfoTableModel.COLUMN_COLOR_DEPTH) {
                     setHorizontalAlignment(SwingConstants.CENTER);
                 } else {
                     setHorizontalAlignment(SwingConstants.LEFT);
@@ -134,6 +164,14 @@ public class ImageInfoPanel extends JPanel {
         table.getColumnModel().getColumn(5).setPreferredWidth(100); // Глубина цвета
         table.getColumnModel().getColumn(6).setPreferredWidth(150); // Сжатие
         table.getColumnModel().getColumn(7).setPreferredWidth(200); // Доп. информация
+        table.getColumnModel().getColumn(8).setPreferredWidth(90);  // Дубликаты
+
+        // Столбец эскизов появляется первым при включении флажка
+        thumbnailColumn = table.getColumnModel().getColumn(ImageInfoTableModel.COLUMN_THUMBNAIL);
+        thumbnailColumn.setCellRenderer(new ThumbnailRenderer(thumbnailService, tableModel));
+        thumbnailColumn.setPreferredWidth(ThumbnailService.THUMBNAIL_SIZE + 12);
+        thumbnailColumn.setMinWidth(ThumbnailService.THUMBNAIL_SIZE + 12);
+        table.removeColumn(thumbnailColumn);
     }
 
     private void setupLayout() {
@@ -154,6 +192,8 @@ public class ImageInfoPanel extends JPanel {
         ));
         scrollPane.getViewport().setBackground(Color.WHITE);
         scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        // Прокрутка и изменение размера окна меняют набор видимых строк
+        scrollPane.getViewport().addChangeListener(e -> requestVisibleThumbnails());
 
         // Панель с количеством записей
         JPanel bottomPanel = new JPanel(new BorderLayout());
@@ -165,43 +205,214 @@ public class ImageInfoPanel extends JPanel {
         JPanel infoPanel = new JPanel();
         infoPanel.setBackground(new Color(240, 240, 245));
         infoPanel.add(new JLabel("Нажмите на заголовок для сортировки"));
+        infoPanel.add(thumbnailsBox);
         infoPanel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
         bottomPanel.add(infoPanel, BorderLayout.EAST);
 
-        add(titleLabel, BorderLayout.NORTH);
+        // Заголовок и панель фильтра
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.setBackground(new Color(240, 240, 245));
+        topPanel.add(titleLabel, BorderLayout.NORTH);
+        topPanel.add(createFilterPanel(), BorderLayout.CENTER);
+
+        add(topPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
         add(bottomPanel, BorderLayout.SOUTH);
     }
 
-    public void addImageInfo(ImageInfo info) {
-        imageInfoList.add(info);
-
-        SwingUtilities.invokeLater(() -> {
-            tableModel.addRow(new Object[]{
-                    info.getFileName(),
-                    info.getFormat(),
-                    info.getSizeFormatted(),
-                    info.getResolutionFormatted(),
-                    info.getDimensions(),
-                    info.getColorDepthFormatted(),
-                    info.getCompression(),
-                    info.getAdditionalInfo()
-            });
-            updateCountLabel();
+    private void createFilterFields() {
+        formatFilterBox = new JComboBox<>(new String[]{
+                "Все", "JPEG", "GIF", "TIFF", "BMP", "PNG", "PCX"
         });
+        formatFilterBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        formatFilterBox.addActionListener(e -> applyFilter());
+
+        minSizeField = createFilterField(6);
+        maxSizeField = createFilterField(6);
+        minWidthField = createFilterField(5);
+        minHeightField = createFilterField(5);
+
+        duplicatesOnlyBox = new JCheckBox("Только дубликаты");
+        duplicatesOnlyBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        duplicatesOnlyBox.setBackground(new Color(240, 240, 245));
+        duplicatesOnlyBox.addActionListener(e -> applyFilter());
+
+        thumbnailsBox = new JCheckBox("Эскизы");
+        thumbnailsBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        thumbnailsBox.setBackground(new Color(240, 240, 245));
+        thumbnailsBox.addActionListener(e -> setThumbnailsVisible(thumbnailsBox.isSelected()));
+    }
+
+    private JTextField createFilterField(int columns) {
+        JTextField field = new JTextField(columns);
+        field.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        field.addActionListener(e -> applyFilter());
+        return field;
+    }
+
+    private JPanel createFilterPanel() {
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
+        filterPanel.setBackground(new Color(240, 240, 245));
+        filterPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 8, 0));
+
+        JButton applyBtn = new JButton("Применить");
+        applyBtn.addActionListener(e -> applyFilter());
+        JButton resetBtn = new JButton("Сбросить");
+        resetBtn.addActionListener(e -> resetFilter());
+
+        filterPanel.add(new JLabel("Формат:"));
+        filterPanel.add(formatFilterBox);
+        filterPanel.add(new JLabel("Размер, КБ от:"));
+        filterPanel.add(minSizeField);
+        filterPanel.add(new JLabel("до:"));
+        filterPanel.add(maxSizeField);
+        filterPanel.add(new JLabel("Мин. ширина:"));
+        filterPanel.add(minWidthField);
+        filterPanel.add(new JLabel("Мин. высота:"));
+        filterPanel.add(minHeightField);
+        filterPanel.add(duplicatesOnlyBox);
+        filterPanel.add(applyBtn);
+        filterPanel.add(resetBtn);
+        return filterPanel;
+    }
+
+    private void applyFilter() {
+        String format = (String) formatFilterBox.getSelectedItem();
+        long minSizeKb = parseFilterField(minSizeField);
+        long maxSizeKb = parseFilterField(maxSizeField);
+        long minWidth = parseFilterField(minWidthField);
+        long minHeight = parseFilterField(minHeightField);
+        if (minSizeKb < 0 || maxSizeKb < 0 || minWidth < 0 || minHeight < 0) {
+            return; // Ошибка ввода подсвечена в поле
+        }
+
+        rowSorter.setFilter(new ImageInfoFilter(
+                "Все".equals(format) ? null : format,
+                minSizeKb * 1024, maxSizeKb * 1024,
+                (int) minWidth, (int) minHeight, duplicatesOnlyBox.isSelected()));
+        notifyScanFocus();
+    }
+
+    public void setScanFocusListener(BiConsumer<Path, String> scanFocusListener) {
+        this.scanFocusListener = scanFocusListener;
+    }
+
+    private void notifyScanFocus() {
+        if (scanFocusListener == null) {
+            return;
+        }
+        Path directory = null;
+        int viewRow = table.getSelectedRow();
+        if (viewRow >= 0) {
+            directory = Paths.get(tableModel.getFilePath(table.convertRowIndexToModel(viewRow))).getParent();
+        }
+        String format = (String) formatFilterBox.getSelectedItem();
+        scanFocusListener.accept(directory, "Все".equals(format) ? null : format);
+    }
+
+    private void setThumbnailsVisible(boolean visible) {
+        if (visible) {
+            table.addColumn(thumbnailColumn);
+            table.moveColumn(table.getColumnCount() - 1, 0);
+            table.setRowHeight(ThumbnailService.THUMBNAIL_SIZE + 6);
+            requestVisibleThumbnails();
+        } else {
+            table.removeColumn(thumbnailColumn);
+            table.setRowHeight(ROW_HEIGHT);
+            thumbnailService.request(List.of());
+        }
+    }
+
+    // Ключи строк, попадающих в окно прокрутки; запрос заменяет предыдущий
+    private void requestVisibleThumbnails() {
+        if (!thumbnailsBox.isSelected()) {
+            return;
+        }
+        Rectangle visible = table.getVisibleRect();
+        int first = table.rowAtPoint(new Point(0, visible.y));
+        if (first < 0) {
+            thumbnailService.request(List.of());
+            return;
+        }
+        int last = table.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+        if (last < 0) {
+            last = table.getRowCount() - 1;
+        }
+        List<ThumbnailKey> keys = new ArrayList<>(last - first + 1);
+        for (int row = first; row <= last; row++) {
+            int modelRow = table.convertRowIndexToModel(row);
+            keys.add(new ThumbnailKey(tableModel.getFilePath(modelRow),
+                    tableModel.getFileSize(modelRow), tableModel.getLastModified(modelRow)));
+        }
+        thumbnailService.request(keys);
+    }
+
+    private void resetFilter() {
+        formatFilterBox.setSelectedIndex(0);
+        minSizeField.setText("");
+        maxSizeField.setText("");
+        minWidthField.setText("");
+        minHeightField.setText("");
+        duplicatesOnlyBox.setSelected(false);
+        applyFilter();
+    }
+
+    // Пустое поле - 0 (нет ограничения), некорректное - -1
+    private long parseFilterField(JTextField field) {
+        String text = field.getText().trim();
+        field.setBackground(Color.WHITE);
+        if (text.isEmpty()) {
+            return 0;
+        }
+        try {
+            long value = Long.parseLong(text);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Подсвечиваем ниже
+        }
+        field.setBackground(new Color(255, 210, 210));
+        return -1;
+    }
+
+    // Вызывается в EDT: вся пачка добавляется одним событием таблицы
+    public void addImageInfos(List<ImageInfo> batch) {
+        tableModel.addAll(batch);
+        updateCountLabel();
+    }
+
+    // Вызывается в EDT после сканирования с поиском дубликатов
+    public void setDuplicateGroups(List<DuplicateGroup> groups) {
+        tableModel.setDuplicateGroups(groups);
+        updateCountLabel();
+    }
+
+    // Вызывается в EDT: изменения, найденные в режиме наблюдения
+    public void applyChanges(List<ImageInfo> updated, List<String> removedFiles, List<String> removedDirectories) {
+        tableModel.applyChanges(updated, removedFiles, removedDirectories);
+        updateCountLabel();
     }
 
     public void clearTable() {
-        imageInfoList.clear();
-        tableModel.setRowCount(0);
+        tableModel.clear();
         updateCountLabel();
     }
 
     private void updateCountLabel() {
-        countLabel.setText("Файлов в таблице: " + imageInfoList.size());
+        int total = tableModel.getRowCount();
+        int shown = rowSorter.getViewRowCount();
+        countLabel.setText(shown == total
+                ? "Файлов в таблице: " + total
+                : "Файлов в таблице: " + total + " (показано: " + shown + ")");
+    }
+
+    // Вызывается в EDT при закрытии окна
+    public void close() {
+        tableModel.close();
     }
 
     public List<ImageInfo> getImageInfoList() {
-        return new ArrayList<>(imageInfoList);
+        return tableModel.getRows();
     }
 }
\ No newline at end of file
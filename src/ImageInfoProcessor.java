@@ -1,421 +1,934 @@
-import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataFormatImpl;
 import javax.imageio.stream.ImageInputStream;
-import javax.swing.*;
-import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import org.w3c.dom.Node;
 
 public class ImageInfoProcessor {
-    private StatusPanel statusPanel;
-    private ImageInfoPanel infoPanel;
+    private ScanListener listener;
     private ExecutorService executor;
-    private AtomicInteger processedFiles;
-    private int totalFiles;
+    private volatile DirectoryCrawler crawler;
+    private volatile ConcurrencyController controller;
+    private volatile ScanStatistics statistics = new ScanStatistics();
     private volatile boolean processing = false;
+    // Объект статистики служит и номером сканирования: обработчик, переживший остановку своего
+    // сканирования, не публикует результат в следующее. Проверка и запись результата - под чтением,
+    // смена сканирования - под записью
+    private final ReentrantReadWriteLock scanSwitch = new ReentrantReadWriteLock();
+    private final HeaderParserEngine headerEngine = new HeaderParserEngine();
+    private final ImageReaderPool readerPool = new ImageReaderPool();
+    private ScanCache scanCache;
+    private boolean scanCacheEnabled = true;
+    private boolean scanCacheOpened = false;
+    // null - кэш по умолчанию (ScanCache.openDefault)
+    private File scanCacheFile;
+    private volatile ScanExecutionMode executionMode = ScanExecutionMode.fromSystemProperty();
+    private volatile int maxInFlight = Math.max(1, Integer.getInteger("imageinfo.maxInFlight", DEFAULT_MAX_IN_FLIGHT));
+    private volatile boolean adaptiveConcurrency = ConcurrencyController.adaptiveFromSystemProperty();
+    // Открывать все файлы и определять формат по содержимому, а не только файлы с известным расширением
+    private volatile boolean sniffAllFiles = "all".equalsIgnoreCase(System.getProperty("imageinfo.sniff"));
+    private volatile boolean duplicateDetection = "on".equalsIgnoreCase(System.getProperty("imageinfo.duplicates"));
+    private volatile DuplicateDetector duplicateDetector;
+    // Наблюдение за папкой после завершения сканирования
+    private volatile boolean watchEnabled = "on".equalsIgnoreCase(System.getProperty("imageinfo.watch"));
+    private FolderWatcher watcher;
+    private ExecutorService watchExecutor;
+    // Последняя полностью просканированная папка и начало её сканирования (мс)
+    private volatile File lastFolder;
+    private volatile long lastScanStartMillis;
+    // Контрольная точка: прерванное сканирование папки продолжается с места остановки
+    private volatile boolean checkpointEnabled = !"off".equalsIgnoreCase(System.getProperty("imageinfo.checkpoint"));
+    private volatile ScanCheckpoint checkpoint;
+    // Фокус пользователя: файлы этих каталогов и этого формата обрабатываются первыми
+    private volatile List<Path> focusDirectories = List.of();
+    private volatile String focusFormat;
+    private volatile ScanScheduler scheduler;
+    private volatile PriorityScanQueue scanQueue;
+    // Срок обработки одного файла и предел прочитанного из него; 0 - без ограничения
+    private volatile long fileTimeoutMillis = Long.getLong("imageinfo.fileTimeoutMs", DEFAULT_FILE_TIMEOUT_MS);
+    private volatile long maxBytesPerFile = Long.getLong("imageinfo.maxBytesPerFile", DEFAULT_MAX_BYTES_PER_FILE);
+    private volatile FileWatchdog watchdog;
+    // Файлы текущего (или последнего) сканирования, снятые с обработки
+    private volatile List<QuarantineEntry> quarantine = new CopyOnWriteArrayList<>();
+
+    private static final int QUEUE_CAPACITY = 10000;
+    // Предел одновременно обрабатываемых файлов в режиме VIRTUAL
+    private static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    // Верхняя граница адаптивного пула платформенных потоков, в числах ядер
+    private static final int PLATFORM_THREADS_PER_CORE = 4;
+    private static final long DEFAULT_FILE_TIMEOUT_MS = 10_000;
+    private static final long DEFAULT_MAX_BYTES_PER_FILE = 64L * 1024 * 1024;
+    // Маркер конца очереди для обработчиков
+    private static final DiscoveredFile END_OF_QUEUE = new DiscoveredFile(new File(""), 0, 0);
 
     private static final Set<String> SUPPORTED_FORMATS = Set.of(
             "jpg", "jpeg", "gif", "tif", "tiff", "bmp", "png", "pcx"
     );
 
-    public void setStatusPanel(StatusPanel statusPanel) {
-        this.statusPanel = statusPanel;
+    public void setListener(ScanListener listener) {
+        this.listener = listener;
     }
 
-    public void setInfoPanel(ImageInfoPanel infoPanel) {
-        this.infoPanel = infoPanel;
+    public ScanExecutionMode getExecutionMode() {
+        return executionMode;
     }
 
+    public void setExecutionMode(ScanExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    public void setAdaptiveConcurrency(boolean adaptive) {
+        this.adaptiveConcurrency = adaptive;
+    }
+
+    public void setSniffAllFiles(boolean sniffAllFiles) {
+        this.sniffAllFiles = sniffAllFiles;
+    }
+
+    // Поиск дубликатов по содержимому после разбора заголовков
+    public void setDuplicateDetection(boolean duplicateDetection) {
+        this.duplicateDetection = duplicateDetection;
+    }
+
+    // Включение при уже просканированной папке сразу начинает наблюдение за ней
+    public void setWatchEnabled(boolean watchEnabled) {
+        this.watchEnabled = watchEnabled;
+        File folder = lastFolder;
+        if (!watchEnabled) {
+            stopWatching();
+        } else if (!processing && folder != null) {
+            startWatching(folder);
+        }
+    }
+
+    // false - сканирование начинается заново, контрольная точка папки удаляется
+    public void setCheckpointEnabled(boolean checkpointEnabled) {
+        this.checkpointEnabled = checkpointEnabled;
+    }
+
+    public boolean isCheckpointEnabled() {
+        return checkpointEnabled;
+    }
+
+    // Пауза: новые файлы не берутся в обработку, обход каталогов останавливается
+    // на заполненной очереди; контрольная точка сбрасывается на диск
+    public void setPaused(boolean paused) {
+        ConcurrencyController currentController = controller;
+        if (!processing || currentController == null || currentController.isPaused() == paused) {
+            return;
+        }
+        currentController.setPaused(paused);
+        ScanCheckpoint currentCheckpoint = checkpoint;
+        if (paused && currentCheckpoint != null) {
+            currentCheckpoint.flush();
+        }
+        if (paused) {
+            listener.scanPaused();
+        } else {
+            listener.scanContinued();
+        }
+    }
+
+    // Меняет порядок и для уже найденных файлов текущего сканирования
+    public void setScanFocus(Collection<Path> directories, String format) {
+        focusDirectories = List.copyOf(directories);
+        focusFormat = format;
+        ScanScheduler currentScheduler = scheduler;
+        PriorityScanQueue currentQueue = scanQueue;
+        if (currentScheduler != null && currentQueue != null) {
+            currentScheduler.setFocus(focusDirectories, format);
+            currentQueue.reprioritize();
+        }
+    }
+
+    public void setFileTimeout(long millis) {
+        this.fileTimeoutMillis = Math.max(0, millis);
+    }
+
+    public void setMaxBytesPerFile(long maxBytes) {
+        this.maxBytesPerFile = Math.max(0, maxBytes);
+    }
+
+    public boolean isPaused() {
+        ConcurrencyController currentController = controller;
+        return processing && currentController != null && currentController.isPaused();
+    }
+
+    // Вызывается до первого сканирования
+    public void setScanCacheEnabled(boolean enabled) {
+        this.scanCacheEnabled = enabled;
+    }
+
+    // Вызывается до первого сканирования
+    public void setScanCacheFile(File file) {
+        this.scanCacheFile = file;
+    }
+
+    // Блокирует до окончания обработки всех найденных файлов
     public void processFolder(File folder) {
         if (processing) {
             shutdown();
         }
+        stopWatching();
+        lastFolder = null;
 
-        processing = true;
-        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        processedFiles = new AtomicInteger(0);
+        long startTime = System.nanoTime();
+        long startMillis = System.currentTimeMillis();
+        ScanStatistics currentStatistics = new ScanStatistics();
+        scanSwitch.writeLock().lock();
+        try {
+            processing = true;
+            statistics = currentStatistics;
+            quarantine = new CopyOnWriteArrayList<>();
+        } finally {
+            scanSwitch.writeLock().unlock();
+        }
 
-        List<File> imageFiles = findImageFiles(folder);
-        totalFiles = imageFiles.size();
+        // Кэш загружается один раз и переиспользуется при повторных сканированиях
+        if (!scanCacheOpened) {
+            scanCacheOpened = true;
+            if (scanCacheEnabled) {
+                scanCache = scanCacheFile != null ? ScanCache.openOrNull(scanCacheFile) : ScanCache.openDefault();
+            }
+        }
 
-        if (totalFiles == 0) {
-            updateStatus("В выбранной папке не найдено поддерживаемых изображений", "error");
-            processing = false;
-            return;
+        DuplicateDetector currentDetector = duplicateDetection ? new DuplicateDetector() : null;
+        duplicateDetector = currentDetector;
+
+        // Пути в контрольной точке абсолютные, поэтому и обход идёт от абсолютного пути
+        Path root = folder.getAbsoluteFile().toPath();
+        String checkpointMode = sniffAllFiles ? "all" : "extensions";
+        ScanCheckpoint currentCheckpoint;
+        if (checkpointEnabled) {
+            currentCheckpoint = ScanCheckpoint.openFor(root, checkpointMode);
+        } else {
+            ScanCheckpoint.discardFor(root, checkpointMode);
+            currentCheckpoint = null;
         }
+        checkpoint = currentCheckpoint;
 
-        updateStatus("Найдено файлов: " + totalFiles + ". Начало обработки...", "info");
-        infoPanel.clearTable();
+        listener.scanStarted(folder);
 
-        // Обновляем прогресс в GUI потоке
-        SwingUtilities.invokeLater(() -> {
-            if (statusPanel != null) {
-                statusPanel.updateProgress(0, totalFiles);
+        if (currentCheckpoint != null && currentCheckpoint.isResumed()) {
+            listener.scanRestored(currentCheckpoint.getStoredFiles());
+        }
+
+        // Файлы передаются обработчикам сразу по мере обнаружения, но не в порядке обхода:
+        // сначала файлы в фокусе пользователя, затем - с наименьшим ожидаемым временем обработки
+        ScanScheduler currentScheduler = new ScanScheduler(currentStatistics, scanCache,
+                file -> isSupportedFormat(file) ? getFileFormat(file) : null);
+        currentScheduler.setFocus(focusDirectories, focusFormat);
+        PriorityScanQueue queue = new PriorityScanQueue(QUEUE_CAPACITY, currentScheduler);
+        scheduler = currentScheduler;
+        scanQueue = queue;
+        Predicate<Path> fileFilter = sniffAllFiles ? path -> true : this::isSupportedFormat;
+        DirectoryCrawler currentCrawler = new DirectoryCrawler(queue, fileFilter, currentStatistics);
+        if (currentCheckpoint != null && currentCheckpoint.isResumed()) {
+            // Каталоги читаются заново; неизменённые файлы получают исход из точки без чтения
+            ScanCheckpoint resumed = currentCheckpoint;
+            currentCrawler.setRestore(file -> restoreFile(resumed, file, currentStatistics, currentDetector));
+        }
+        crawler = currentCrawler;
+
+        // Число одновременно обрабатываемых файлов задаёт контроллер: в адаптивном режиме
+        // он меняет его в пределах [1, maxLevel] по замерам скорости
+        int cores = Runtime.getRuntime().availableProcessors();
+        boolean adaptive = adaptiveConcurrency;
+        int workers;
+        ConcurrencyController currentController;
+        boolean virtual = executionMode == ScanExecutionMode.VIRTUAL;
+        if (virtual) {
+            int limit = maxInFlight;
+            currentController = adaptive
+                    ? new ConcurrencyController(Math.min(cores, limit), 1, limit, true)
+                    : new ConcurrencyController(limit, limit, limit, false);
+            // Один поток-диспетчер раздаёт файлы виртуальным потокам
+            workers = 1;
+        } else {
+            currentController = adaptive
+                    ? new ConcurrencyController(cores, 1, cores * PLATFORM_THREADS_PER_CORE, true)
+                    : new ConcurrencyController(cores, cores, cores, false);
+            // Потоков столько, сколько допускает верхняя граница; лишние ждут разрешения
+            workers = currentController.getMaxLevel();
+        }
+        // Каждый обработчик отмечается здесь, получив маркер конца очереди; потерянный поток
+        // не отмечается, за него это сделает заменивший его
+        CountDownLatch workersDone = new CountDownLatch(workers);
+        // Файлы в обработке у виртуальных потоков; диспетчер дожидается их после маркера конца
+        Phaser inFlight = new Phaser(1);
+        ExecutorService currentExecutor = virtual ? Executors.newSingleThreadExecutor() : Executors.newCachedThreadPool();
+        executor = currentExecutor;
+
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(fileTimeoutMillis);
+        FileWatchdog currentWatchdog = timeoutNanos > 0 ? new FileWatchdog(timeoutNanos,
+                task -> quarantine(currentStatistics, task.getFile(), task.getElapsedNanos(),
+                        String.format("превышено время обработки (%.1f с)", timeoutNanos / 1e9)),
+                () -> {
+                    // Поток не вернулся: его разрешение возвращается, место занимает новый обработчик
+                    currentController.release();
+                    if (virtual) {
+                        inFlight.arriveAndDeregister();
+                    } else {
+                        try {
+                            currentExecutor.submit(() -> runWorker(queue, currentController, workersDone, currentStatistics));
+                        } catch (RejectedExecutionException e) {
+                            // Сканирование остановлено
+                        }
+                    }
+                }) : null;
+        watchdog = currentWatchdog;
+
+        if (virtual) {
+            currentExecutor.submit(() -> runVirtualDispatcher(queue, currentController, inFlight, workersDone,
+                    currentStatistics));
+        } else {
+            for (int i = 0; i < workers; i++) {
+                currentExecutor.submit(() -> runWorker(queue, currentController, workersDone, currentStatistics));
             }
-        });
+        }
+        controller = currentController;
+        currentController.start();
+
+        currentCrawler.crawl(root);
+        if (!processing) {
+            return; // Остановлено пользователем
+        }
 
-        // Запускаем все задачи
-        for (File file : imageFiles) {
-            executor.submit(() -> processFile(file));
+        try {
+            // Сигнал завершения для каждого обработчика
+            for (int i = 0; i < workers; i++) {
+                queue.putLast(END_OF_QUEUE);
+            }
+            // Не awaitTermination: потерянные потоки могут не завершиться никогда
+            workersDone.await();
+            currentExecutor.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!processing) {
+            return;
+        }
+        if (currentWatchdog != null) {
+            currentWatchdog.close();
+        }
+        int level = currentController.getLevel();
+        currentController.stop();
+        if (scanCache != null) {
+            scanCache.flush();
         }
 
-        // Отслеживаем завершение всех задач
-        executor.submit(() -> {
-            executor.shutdown();
+        // Хэширование - отдельный этап после разбора: только теперь известны все файлы одного размера.
+        // Параллелизм - уровень, подобранный контроллером для этого диска
+        List<DuplicateGroup> duplicates = Collections.emptyList();
+        if (currentDetector != null) {
             try {
-                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-                processing = false;
-                SwingUtilities.invokeLater(() -> {
-                    updateStatus("Обработка завершена: " + processedFiles.get() + " файлов", "success");
-                    if (statusPanel != null) {
-                        statusPanel.updateProgress(totalFiles, totalFiles);
-                    }
-                });
+                duplicates = currentDetector.findDuplicates(currentStatistics, level);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+                return;
             }
-        });
-    }
+            if (!processing) {
+                return;
+            }
+        }
+        if (currentCheckpoint != null) {
+            currentCheckpoint.delete(); // Продолжать больше нечего
+        }
+        processing = false;
+
+        listener.scanFinished(new ScanSummary(getTotalFiles(), currentStatistics,
+                System.nanoTime() - startTime, duplicates));
 
-    private List<File> findImageFiles(File folder) {
-        List<File> imageFiles = new ArrayList<>();
-        if (folder.isDirectory()) {
-            findImageFilesRecursive(folder, imageFiles);
+        lastScanStartMillis = startMillis;
+        lastFolder = folder;
+        if (watchEnabled) {
+            startWatching(folder);
         }
-        return imageFiles;
     }
 
-    private void findImageFilesRecursive(File folder, List<File> imageFiles) {
-        File[] files = folder.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    findImageFilesRecursive(file, imageFiles);
-                } else if (file.isFile() && isSupportedFormat(file)) {
-                    imageFiles.add(file);
-                    if (imageFiles.size() >= 100000) { // Ограничение по заданию
-                        break;
-                    }
+    private void runWorker(BlockingQueue<DiscoveredFile> queue, ConcurrencyController limiter,
+                           CountDownLatch workersDone, ScanStatistics scanStatistics) {
+        boolean replaced = false;
+        try {
+            while (processing) {
+                limiter.acquire();
+                DiscoveredFile file;
+                try {
+                    file = queue.take();
+                } catch (InterruptedException e) {
+                    limiter.release();
+                    throw e;
+                }
+                if (file == END_OF_QUEUE) {
+                    limiter.release();
+                    return;
                 }
+                if (!processTimed(file, limiter, scanStatistics)) {
+                    replaced = true; // Поток признан потерянным и уже заменён
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!replaced) {
+                workersDone.countDown();
             }
         }
     }
 
-    private boolean isSupportedFormat(File file) {
-        String name = file.getName().toLowerCase();
-        int dotIndex = name.lastIndexOf('.');
-        if (dotIndex > 0) {
-            String extension = name.substring(dotIndex + 1);
-            return SUPPORTED_FORMATS.contains(extension);
+    // Виртуальный поток на файл, не больше уровня контроллера одновременно. После маркера конца
+    // диспетчер дожидается файлов в обработке (кроме потерянных); при остановке он прерывается
+    // через shutdownNow и прерывает запущенные задачи
+    private void runVirtualDispatcher(BlockingQueue<DiscoveredFile> queue, ConcurrencyController limiter,
+                                      Phaser inFlight, CountDownLatch workersDone,
+                                      ScanStatistics scanStatistics) {
+        ExecutorService perFile = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            while (processing) {
+                DiscoveredFile file = queue.take();
+                if (file == END_OF_QUEUE) {
+                    inFlight.awaitAdvanceInterruptibly(inFlight.arrive());
+                    return;
+                }
+                limiter.acquire();
+                inFlight.register();
+                perFile.submit(() -> {
+                    if (!processing) {
+                        limiter.release();
+                        inFlight.arriveAndDeregister();
+                    } else if (processTimed(file, limiter, scanStatistics)) {
+                        inFlight.arriveAndDeregister();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            perFile.shutdownNow();
+            workersDone.countDown();
         }
-        return false;
     }
 
-    private void processFile(File file) {
+    // Время обработки файла передаётся контроллеру вместе с разрешением. Файл, снятый сторожем,
+    // возвращает разрешение без замера: его время исказило бы выбор уровня параллелизма.
+    // false - поток признан потерянным, разрешение за него уже возвращено
+    private boolean processTimed(DiscoveredFile file, ConcurrencyController limiter, ScanStatistics scanStatistics) {
+        FileWatchdog currentWatchdog = watchdog;
+        FileWatchdog.Task task = currentWatchdog != null ? currentWatchdog.start(file) : null;
+        long start = System.nanoTime();
         try {
-            ImageInfo info = extractImageInfo(file);
-            SwingUtilities.invokeLater(() -> {
-                infoPanel.addImageInfo(info);
-                int processed = processedFiles.incrementAndGet();
-                updateProgress(processed, totalFiles);
-
-                if (processed % 10 == 0 || processed == totalFiles) {
-                    updateStatus("Обработано " + processed + " из " + totalFiles + " файлов", "info");
-                }
-            });
-        } catch (Exception e) {
-            System.err.println("Ошибка обработки файла " + file.getName() + ": " + e.getMessage());
-            SwingUtilities.invokeLater(() -> {
-                updateStatus("Ошибка обработки файла: " + file.getName(), "error");
-            });
-            processedFiles.incrementAndGet();
-            updateProgress(processedFiles.get(), totalFiles);
+            processFile(file, task, scanStatistics);
+        } finally {
+            if (task == null || !task.isTimedOut()) {
+                limiter.release(System.nanoTime() - start);
+            } else if (!task.isAbandoned()) {
+                limiter.release();
+            }
         }
+        return task == null || !task.isAbandoned();
     }
 
-    private ImageInfo extractImageInfo(File file) throws IOException {
-        ImageInfo info = new ImageInfo();
-        info.setFileName(file.getName());
-        info.setFileSize(file.length());
-        info.setFilePath(file.getAbsolutePath());
+    // Счётчики текущего (или последнего) сканирования; читаются с фиксированной частотой
+    public ScanStatistics getStatistics() {
+        return statistics;
+    }
 
-        String format = getFileFormat(file);
-        info.setFormat(format.toUpperCase());
+    public int getProcessedCount() {
+        return (int) statistics.getFilesProcessed();
+    }
 
-        try {
-            // Используем ImageIO для получения базовой информации
-            try (ImageInputStream iis = ImageIO.createImageInputStream(file)) {
-                if (iis != null) {
-                    Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
-                    if (readers.hasNext()) {
-                        ImageReader reader = readers.next();
-                        try {
-                            reader.setInput(iis);
-
-                            info.setWidth(reader.getWidth(0));
-                            info.setHeight(reader.getHeight(0));
-
-                            // Пытаемся получить метаданные для разрешения
-                            try {
-                                IIOMetadata metadata = reader.getImageMetadata(0);
-                                if (metadata != null) {
-                                    // Извлечение разрешения из метаданных
-                                    double resolution = extractResolutionFromMetadata(metadata);
-                                    if (resolution > 0) {
-                                        info.setResolution(resolution);
-                                    }
-                                }
-                            } catch (Exception e) {
-                                // Игнорируем ошибки метаданных
-                            }
+    public int getFailedCount() {
+        return (int) statistics.getErrors();
+    }
 
-                            reader.dispose();
-                        } catch (Exception e) {
-                            // Если ImageIO не может прочитать, пробуем ручной парсинг
-                            System.err.println("ImageIO не смог прочитать файл " + file.getName() + ": " + e.getMessage());
-                        }
-                    }
-                }
-            }
+    // Текущий уровень параллелизма и скорость за последний замер (0 - ещё не измерена)
+    public int getConcurrencyLevel() {
+        ConcurrencyController currentController = controller;
+        return currentController != null ? currentController.getLevel() : 0;
+    }
 
-            // Дополнительная информация в зависимости от формата
-            try (FileInputStream fis = new FileInputStream(file)) {
-                switch (format.toLowerCase()) {
-                    case "jpg":
-                    case "jpeg":
-                        extractJpegInfo(info, fis);
-                        break;
-                    case "gif":
-                        extractGifInfo(info, fis);
-                        break;
-                    case "tif":
-                    case "tiff":
-                        extractTiffInfo(info, fis);
-                        break;
-                    case "bmp":
-                        extractBmpInfo(info, fis);
-                        break;
-                    case "png":
-                        extractPngInfo(info, fis);
-                        break;
-                    case "pcx":
-                        extractPcxInfo(info, fis);
-                        break;
-                }
-            }
+    public double getThroughput() {
+        ConcurrencyController currentController = controller;
+        return currentController != null ? currentController.getThroughput() : 0;
+    }
 
-        } catch (Exception e) {
-            System.err.println("Ошибка при извлечении информации из файла " + file.getName() + ": " + e.getMessage());
-            throw e;
-        }
+    // Поиск дубликатов текущего сканирования или null, если он не включён
+    public DuplicateDetector getDuplicateDetector() {
+        return duplicateDetector;
+    }
 
-        // Если разрешение не установлено, ставим значение по умолчанию
-        if (info.getResolution() <= 0) {
-            info.setResolution(72.0); // Стандартное разрешение
+    // Общее число файлов растёт по ходу обхода каталогов; файлы, оказавшиеся
+    // не изображениями (в режиме определения по содержимому), не учитываются,
+    // восстановленные из контрольной точки - учитываются
+    public int getTotalFiles() {
+        DirectoryCrawler currentCrawler = crawler;
+        if (currentCrawler == null) {
+            return 0;
         }
-
-        return info;
+        ScanStatistics currentStatistics = statistics;
+        return currentCrawler.getDiscoveredCount() - (int) currentStatistics.getFilesSkipped()
+                + (int) currentStatistics.getFilesRestored();
     }
 
-    private double extractResolutionFromMetadata(IIOMetadata metadata) {
-        // Базовая реализация извлечения разрешения
-        // В реальном приложении нужно парсить метаданные формата
-        return 0; // Возвращаем 0, если не удалось извлечь
+    private boolean isSupportedFormat(Path path) {
+        return isSupportedFormat(path.getFileName().toFile());
     }
 
-    private String getFileFormat(File file) {
+    private boolean isSupportedFormat(File file) {
         String name = file.getName().toLowerCase();
         int dotIndex = name.lastIndexOf('.');
         if (dotIndex > 0) {
-            return name.substring(dotIndex + 1);
+            String extension = name.substring(dotIndex + 1);
+            return SUPPORTED_FORMATS.contains(extension);
         }
-        return "unknown";
+        return false;
     }
 
-    private void extractJpegInfo(ImageInfo info, FileInputStream fis) throws IOException {
-        byte[] buffer = new byte[8192];
-        int bytesRead = fis.read(buffer);
-
-        if (bytesRead > 0) {
-            for (int i = 0; i < bytesRead - 1; i++) {
-                if (buffer[i] == (byte)0xFF) {
-                    int marker = buffer[i + 1] & 0xFF;
-                    // SOF0-SOF15 markers
-                    if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
-                        if (i + 8 < bytesRead) {
-                            int bitsPerPixel = buffer[i + 4] & 0xFF;
-                            info.setColorDepth(bitsPerPixel);
+    // task - срок файла у сторожа или null. Исход файла, снятого сторожем, уже записан в карантин.
+    // currentStatistics - статистика сканирования, к которому относится файл
+    private void processFile(DiscoveredFile discovered, FileWatchdog.Task task, ScanStatistics currentStatistics) {
+        File file = discovered.getFile();
+        long start = System.nanoTime();
+        boolean inTime = true;
+        try {
+            // Неизменённый файл берётся из кэша без открытия
+            ImageInfo info = scanCache != null ? scanCache.lookup(discovered) : null;
+            if (info != null) {
+                inTime = task == null || task.finish();
+                if (!inTime) {
+                    return;
+                }
+                currentStatistics.recordFile(info.getFormat(), info.getFileSize(), 0, true);
+            } else {
+                StageTimings timings = new StageTimings();
+                info = extractImageInfo(discovered, timings, newFileBudget());
+                inTime = task == null || task.finish();
+                if (!inTime) {
+                    return;
+                }
+                if (info == null) {
+                    currentStatistics.recordSkipped();
+                    return;
+                }
+                currentStatistics.recordFile(info.getFormat(), info.getFileSize(), System.nanoTime() - start, false);
+                recordStages(currentStatistics, info, timings);
+                if (scanCache != null) {
+                    scanCache.put(info);
+                }
+            }
+            scanSwitch.readLock().lock();
+            try {
+                if (!isCurrentScan(currentStatistics)) {
+                    return; // Сканирование остановлено, таблица уже может принадлежать следующему
+                }
+                DuplicateDetector currentDetector = duplicateDetector;
+                if (currentDetector != null) {
+                    currentDetector.add(info.getFilePath(), info.getFileSize());
+                }
+                ScanCheckpoint currentCheckpoint = checkpoint;
+                if (currentCheckpoint != null) {
+                    currentCheckpoint.fileFinished(info);
+                }
+                long publishStart = System.nanoTime();
+                listener.fileProcessed(info);
+                currentStatistics.recordStage(PipelineStage.PUBLISH, info.getFormat(),
+                        System.nanoTime() - publishStart, info.getFilePath());
+            } finally {
+                scanSwitch.readLock().unlock();
+            }
+        } catch (FileBudgetExceededException e) {
+            inTime = task == null || task.finish();
+            if (inTime) {
+                quarantine(currentStatistics, discovered, System.nanoTime() - start, e.getMessage());
+            }
+        } catch (OutOfMemoryError e) {
+            // Повреждённые размеры в заголовке могут заставить ImageIO выделить огромный массив
+            inTime = task == null || task.finish();
+            if (inTime) {
+                quarantine(currentStatistics, discovered, System.nanoTime() - start, "нехватка памяти при разборе");
+            }
+        } catch (Exception e) {
+            inTime = task == null || task.finish();
+            if (inTime) {
+                System.err.println("Ошибка обработки файла " + file.getName() + ": " + e.getMessage());
+                currentStatistics.recordError();
+                scanSwitch.readLock().lock();
+                try {
+                    if (isCurrentScan(currentStatistics)) {
+                        // Ошибка - исход файла: при продолжении сканирования он не читается снова
+                        ScanCheckpoint currentCheckpoint = checkpoint;
+                        if (currentCheckpoint != null) {
+                            currentCheckpoint.fileFailed(discovered, String.valueOf(e.getMessage()));
                         }
+                        listener.fileFailed(file, e);
                     }
+                } finally {
+                    scanSwitch.readLock().unlock();
                 }
             }
+        } finally {
+            if (task != null) {
+                task.finish();
+            }
         }
-
-        if (info.getColorDepth() == 0) {
-            info.setColorDepth(24); // Стандартная глубина для JPEG
-        }
-
-        info.setCompression("JPEG (с потерями)");
     }
 
-    private void extractGifInfo(ImageInfo info, FileInputStream fis) throws IOException {
-        byte[] header = new byte[13];
-        if (fis.read(header) == 13) {
-            // Размер из заголовка GIF
-            int width = ((header[7] & 0xFF) << 8) | (header[6] & 0xFF);
-            int height = ((header[9] & 0xFF) << 8) | (header[8] & 0xFF);
-
-            // Глубина цвета
-            int packed = header[10] & 0xFF;
-            int colorDepth = ((packed >> 4) & 0x07) + 1;
-            info.setColorDepth(colorDepth);
-
-            // Количество цветов
-            int colorTableSize = 1 << ((packed & 0x07) + 1);
-            info.setAdditionalInfo("Цветов в палитре: " + colorTableSize);
+    private FileBudget newFileBudget() {
+        return new FileBudget(maxBytesPerFile, TimeUnit.MILLISECONDS.toNanos(fileTimeoutMillis));
+    }
 
-            info.setCompression("LZW");
+    private void quarantine(ScanStatistics currentStatistics, DiscoveredFile discovered, long elapsedNanos,
+                            String reason) {
+        File file = discovered.getFile();
+        QuarantineEntry entry = new QuarantineEntry(file.getAbsolutePath(), System.currentTimeMillis(),
+                elapsedNanos, reason);
+        currentStatistics.recordQuarantined();
+        System.err.println("Файл " + file.getName() + " помещён в карантин: " + reason);
+        scanSwitch.readLock().lock();
+        try {
+            if (isCurrentScan(currentStatistics)) {
+                ScanCheckpoint currentCheckpoint = checkpoint;
+                if (currentCheckpoint != null) {
+                    currentCheckpoint.fileQuarantined(discovered, entry);
+                }
+                quarantine.add(entry);
+                listener.fileQuarantined(entry);
+            }
+        } finally {
+            scanSwitch.readLock().unlock();
         }
     }
 
-    private void extractTiffInfo(ImageInfo info, FileInputStream fis) throws IOException {
-        byte[] header = new byte[8];
-        if (fis.read(header) == 8) {
-            info.setCompression("Различные методы (LZW, ZIP, без сжатия)");
-            info.setColorDepth(24); // Наиболее распространено
+    // Вызывается обходом для каждого найденного файла. true - исход файла, не менявшегося
+    // с прерванного сканирования, опубликован, и файл в очередь не ставится
+    private boolean restoreFile(ScanCheckpoint resumed, DiscoveredFile file, ScanStatistics currentStatistics,
+                                DuplicateDetector currentDetector) {
+        scanSwitch.readLock().lock();
+        try {
+            if (!isCurrentScan(currentStatistics)) {
+                return true; // Сканирование остановлено: ставить файл в очередь незачем
+            }
+            return resumed.restore(file, info -> {
+                currentStatistics.recordRestored(info.getFormat(), info.getFileSize());
+                if (currentDetector != null) {
+                    currentDetector.add(info.getFilePath(), info.getFileSize());
+                }
+                listener.fileProcessed(info);
+            }, (path, message) -> {
+                currentStatistics.recordRestoredFailure(false);
+                listener.fileFailed(new File(path), new IOException(message));
+            }, entry -> {
+                currentStatistics.recordRestoredFailure(true);
+                quarantine.add(entry);
+                listener.fileQuarantined(entry);
+            });
+        } finally {
+            scanSwitch.readLock().unlock();
         }
     }
 
-    private void extractBmpInfo(ImageInfo info, FileInputStream fis) throws IOException {
-        byte[] header = new byte[54];
-        if (fis.read(header) == 54) {
-            // Размер из заголовка BMP
-            int width = readInt(header, 18, true);
-            int height = Math.abs(readInt(header, 22, true)); // Берем по модулю
+    // false - обработчик пережил остановку своего сканирования: его результат отбрасывается
+    private boolean isCurrentScan(ScanStatistics scanStatistics) {
+        return processing && statistics == scanStatistics;
+    }
 
-            // Глубина цвета
-            int bitsPerPixel = readShort(header, 28, true);
-            info.setColorDepth(bitsPerPixel);
+    // Файлы, снятые с обработки в текущем (или последнем) сканировании
+    public List<QuarantineEntry> getQuarantine() {
+        return quarantine;
+    }
 
-            // Сжатие
-            int compression = readInt(header, 30, true);
-            String compressionStr = getBmpCompression(compression);
-            info.setCompression(compressionStr);
+    private void recordStages(ScanStatistics currentStatistics, ImageInfo info, StageTimings timings) {
+        for (PipelineStage stage : new PipelineStage[] {PipelineStage.OPEN, PipelineStage.PROBE, PipelineStage.PARSE}) {
+            currentStatistics.recordStage(stage, info.getFormat(), timings.get(stage), info.getFilePath());
         }
     }
 
-    private void extractPngInfo(ImageInfo info, FileInputStream fis) throws IOException {
-        byte[] header = new byte[33]; // Достаточно для чтения IHDR
-        if (fis.read(header) == 33) {
-            // Проверяем сигнатуру PNG
-            if (header[0] == (byte)0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
-                // Ищем блок IHDR (позиция 12-15 после сигнатуры)
-                if (header[12] == 'I' && header[13] == 'H' && header[14] == 'D' && header[15] == 'R') {
-                    int width = readInt(header, 16, false);
-                    int height = readInt(header, 20, false);
-
-                    int bitDepth = header[24] & 0xFF;
-                    int colorType = header[25] & 0xFF;
+    private ImageInfo extractImageInfo(DiscoveredFile discovered, StageTimings timings, FileBudget budget)
+            throws IOException {
+        File file = discovered.getFile();
+        ImageInfo info = new ImageInfo();
+        info.setFileName(file.getName());
+        info.setFileSize(discovered.getSize());
+        info.setLastModified(discovered.getLastModified());
+        info.setFilePath(file.getAbsolutePath());
 
-                    int channels = getPngChannels(colorType);
-                    info.setColorDepth(bitDepth * channels);
+        // Расширение - только предварительная метка: формат определяется по сигнатуре
+        // при чтении заголовка
+        boolean knownExtension = isSupportedFormat(file);
+        info.setFormat(knownExtension ? getFileFormat(file) : null);
 
-                    info.setCompression("Deflate");
+        try {
+            // Один проход по заголовку файла; ImageIO - только запасной вариант
+            if (!headerEngine.parse(file, info, timings, budget)) {
+                if (info.getFormat() == null) {
+                    return null; // Файл без известного расширения оказался не изображением
                 }
+                extractWithImageIO(file, info, timings, budget);
             }
+        } catch (Exception e) {
+            System.err.println("Ошибка при извлечении информации из файла " + file.getName() + ": " + e.getMessage());
+            throw e;
         }
-    }
-
-    private void extractPcxInfo(ImageInfo info, FileInputStream fis) throws IOException {
-        byte[] header = new byte[128];
-        if (fis.read(header) == 128) {
-            // Проверяем сигнатуру PCX
-            if ((header[0] & 0xFF) == 10) {
-                // Размер из заголовка PCX
-                int xMin = readShort(header, 4, true);
-                int yMin = readShort(header, 6, true);
-                int xMax = readShort(header, 8, true);
-                int yMax = readShort(header, 10, true);
 
-                int width = xMax - xMin + 1;
-                int height = yMax - yMin + 1;
+        return info;
+    }
 
-                // Глубина цвета
-                int bitsPerPixel = header[3] & 0xFF;
-                int planes = header[65] & 0xFF;
-                info.setColorDepth(bitsPerPixel * planes);
+    private void extractWithImageIO(File file, ImageInfo info, StageTimings timings, FileBudget budget)
+            throws IOException {
+        long start = System.nanoTime();
+        // FileImageInputStream напрямую: без перебора ImageInputStreamSpi и без дискового кэша
+        try (ImageInputStream iis = new BudgetedImageInputStream(file, budget)) {
+            long opened = System.nanoTime();
+            timings.add(PipelineStage.OPEN, opened - start);
+            ImageReader reader = readerPool.acquire(iis);
+            long probed = System.nanoTime();
+            timings.add(PipelineStage.PROBE, probed - opened);
+            if (reader == null) {
+                return;
+            }
+            info.setFormat(canonicalFormat(reader.getOriginatingProvider().getFormatNames()[0]));
+            try {
+                info.setWidth(reader.getWidth(0));
+                info.setHeight(reader.getHeight(0));
+
+                // Пытаемся получить метаданные для разрешения
+                if (info.getResolution() <= 0) {
+                    try {
+                        IIOMetadata metadata = reader.getImageMetadata(0);
+                        if (metadata != null) {
+                            double resolution = extractResolutionFromMetadata(metadata);
+                            if (resolution > 0) {
+                                info.setResolution(resolution);
+                            }
+                        }
+                    } catch (FileBudgetExceededException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        // Игнорируем ошибки метаданных
+                    }
+                }
+            } catch (FileBudgetExceededException e) {
+                throw e;
+            } catch (Exception e) {
+                System.err.println("ImageIO не смог прочитать файл " + file.getName() + ": " + e.getMessage());
+            } finally {
+                readerPool.release(reader);
+                timings.add(PipelineStage.PARSE, System.nanoTime() - probed);
+            }
+        }
+    }
 
-                info.setCompression("RLE");
+    // Разрешение из стандартного дерева метаданных ImageIO (javax_imageio_1.0).
+    // Используется только для файлов, не разобранных по заголовку
+    private double extractResolutionFromMetadata(IIOMetadata metadata) {
+        if (!metadata.isStandardMetadataFormatSupported()) {
+            return 0;
+        }
+        Node root = metadata.getAsTree(IIOMetadataFormatImpl.standardMetadataFormatName);
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (!"Dimension".equals(node.getNodeName())) {
+                continue;
+            }
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if ("HorizontalPixelSize".equals(child.getNodeName())) {
+                    Node value = child.getAttributes().getNamedItem("value");
+                    if (value != null) {
+                        double millimetersPerPixel = Double.parseDouble(value.getNodeValue());
+                        return millimetersPerPixel > 0 ? 25.4 / millimetersPerPixel : 0;
+                    }
+                }
             }
         }
+        return 0;
     }
 
-    private int readShort(byte[] data, int offset, boolean littleEndian) {
-        if (littleEndian) {
-            return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8);
-        } else {
-            return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    private String getFileFormat(File file) {
+        String name = file.getName().toLowerCase();
+        int dotIndex = name.lastIndexOf('.');
+        if (dotIndex > 0) {
+            return canonicalFormat(name.substring(dotIndex + 1));
         }
+        return "UNKNOWN";
     }
 
-    private int readInt(byte[] data, int offset, boolean littleEndian) {
-        if (littleEndian) {
-            return (data[offset] & 0xFF) |
-                    ((data[offset + 1] & 0xFF) << 8) |
-                    ((data[offset + 2] & 0xFF) << 16) |
-                    ((data[offset + 3] & 0xFF) << 24);
-        } else {
-            return ((data[offset] & 0xFF) << 24) |
-                    ((data[offset + 1] & 0xFF) << 16) |
-                    ((data[offset + 2] & 0xFF) << 8) |
-                    (data[offset + 3] & 0xFF);
+    // Одно название на формат, как у HeaderParser.getFormatName: JPG -> JPEG, TIF -> TIFF
+    private static String canonicalFormat(String name) {
+        String format = name.toUpperCase(Locale.ROOT);
+        switch (format) {
+            case "JPG": return "JPEG";
+            case "TIF": return "TIFF";
+            default: return format;
         }
     }
 
-    private String getBmpCompression(int compression) {
-        switch (compression) {
-            case 0: return "BI_RGB (без сжатия)";
-            case 1: return "BI_RLE8";
-            case 2: return "BI_RLE4";
-            case 3: return "BI_BITFIELDS";
-            case 4: return "BI_JPEG";
-            case 5: return "BI_PNG";
-            default: return "Неизвестно (" + compression + ")";
+    // Изменения за время сканирования наблюдатель находит по времени изменения файлов и каталогов
+    private synchronized void startWatching(File folder) {
+        if (watcher != null) {
+            return;
+        }
+        ExecutorService refreshExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        ScanStatistics watchedScan = statistics;
+        try {
+            FolderWatcher folderWatcher = new FolderWatcher(folder.toPath(),
+                    sniffAllFiles ? path -> true : this::isSupportedFormat,
+                    (changed, removedFiles, removedDirectories) ->
+                            applyChanges(changed, removedFiles, removedDirectories, refreshExecutor, watchedScan),
+                    lastScanStartMillis);
+            folderWatcher.start();
+            watcher = folderWatcher;
+            watchExecutor = refreshExecutor;
+            listener.watchStarted(folder);
+        } catch (IOException e) {
+            refreshExecutor.shutdown();
+            System.err.println("Не удалось включить наблюдение за папкой " + folder + ": " + e.getMessage());
         }
     }
 
-    private int getPngChannels(int colorType) {
-        switch (colorType) {
-            case 0: return 1; // Grayscale
-            case 2: return 3; // RGB
-            case 3: return 1; // Indexed
-            case 4: return 2; // Grayscale + Alpha
-            case 6: return 4; // RGB + Alpha
-            default: return 3;
+    private synchronized void stopWatching() {
+        if (watcher == null) {
+            return;
+        }
+        watcher.close();
+        watchExecutor.shutdownNow();
+        watcher = null;
+        watchExecutor = null;
+        if (scanCache != null) {
+            scanCache.flush();
         }
+        listener.watchStopped();
     }
 
-    private void updateStatus(String message, String type) {
-        if (statusPanel != null) {
-            statusPanel.updateStatus(message, type);
+    // Вызывается потоком наблюдения: заново разбираются только затронутые файлы.
+    // watchedScan - сканирование, после которого включено наблюдение
+    private void applyChanges(List<Path> changed, List<Path> removedFiles, List<Path> removedDirectories,
+                              ExecutorService refreshExecutor, ScanStatistics watchedScan) {
+        List<Callable<ImageInfo>> tasks = new ArrayList<>(changed.size());
+        for (Path path : changed) {
+            tasks.add(() -> refreshFile(path));
+        }
+        List<ImageInfo> updated = new ArrayList<>(changed.size());
+        List<String> removed = new ArrayList<>(removedFiles.size());
+        try {
+            List<Future<ImageInfo>> results = refreshExecutor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                ImageInfo info = results.get(i).get();
+                if (info != null) {
+                    updated.add(info);
+                } else {
+                    // Файл больше не читается как изображение - строка убирается
+                    removed.add(changed.get(i).toString());
+                }
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            return; // Наблюдение остановлено
+        } catch (ExecutionException e) {
+            System.err.println("Ошибка обновления файлов: " + e.getCause());
+            return;
+        }
+        for (Path path : removedFiles) {
+            removed.add(path.toString());
+        }
+        List<String> removedDirectoryPaths = new ArrayList<>(removedDirectories.size());
+        for (Path path : removedDirectories) {
+            removedDirectoryPaths.add(path.toString());
+        }
+        if (scanCache != null) {
+            scanCache.flush();
+        }
+        scanSwitch.readLock().lock();
+        try {
+            if (processing || statistics != watchedScan) {
+                return; // Началось новое сканирование: таблица принадлежит ему
+            }
+            listener.filesChanged(updated, removed, removedDirectoryPaths);
+        } finally {
+            scanSwitch.readLock().unlock();
         }
     }
 
-    private void updateProgress(int current, int total) {
-        if (statusPanel != null) {
-            statusPanel.updateProgress(current, total);
+    // null - файл не изображение или не читается
+    private ImageInfo refreshFile(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            DiscoveredFile discovered = new DiscoveredFile(path.toFile(), attributes.size(),
+                    attributes.lastModifiedTime().toMillis());
+            ImageInfo info = scanCache != null ? scanCache.lookup(discovered) : null;
+            if (info == null) {
+                info = extractImageInfo(discovered, new StageTimings(), newFileBudget());
+                if (info != null && scanCache != null) {
+                    scanCache.put(info);
+                }
+            }
+            return info;
+        } catch (IOException e) {
+            System.err.println("Ошибка обработки файла " + path.getFileName() + ": " + e.getMessage());
+            return null;
         }
     }
 
     public void shutdown() {
-        processing = false;
+        stopWatching();
+        boolean wasProcessing;
+        // После снятия блокировки ни один обработчик уже не публикует результат
+        scanSwitch.writeLock().lock();
+        try {
+            wasProcessing = processing;
+            processing = false;
+        } finally {
+            scanSwitch.writeLock().unlock();
+        }
+        if (wasProcessing && listener != null) {
+            listener.scanStopped();
+        }
+        if (scanCache != null) {
+            scanCache.flush();
+        }
+        // Контрольная точка остаётся на диске: повторное сканирование папки продолжит с места остановки
+        ScanCheckpoint currentCheckpoint = checkpoint;
+        if (currentCheckpoint != null) {
+            currentCheckpoint.close();
+        }
+        DirectoryCrawler currentCrawler = crawler;
+        if (currentCrawler != null) {
+            currentCrawler.cancel();
+        }
+        DuplicateDetector currentDetector = duplicateDetector;
+        if (currentDetector != null) {
+            currentDetector.cancel();
+        }
+        ConcurrencyController currentController = controller;
+        if (currentController != null) {
+            currentController.stop();
+        }
+        FileWatchdog currentWatchdog = watchdog;
+        if (currentWatchdog != null) {
+            currentWatchdog.close();
+        }
         if (executor != null && !executor.isShutdown()) {
             executor.shutdownNow();
             try {
@@ -0,0 +1,441 @@
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Сортировка и фильтрация таблицы по исходным числовым значениям, а не по строкам отображения.
+// Для каждой строки вычисляется примитивный ключ; перестановка индексов хранится вместе с ключами,
+// новые пачки строк сортируются отдельно и сливаются с уже упорядоченными за O(n)
+public class ImageInfoRowSorter extends RowSorter<ImageInfoTableModel> {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    // Предел глубины поразрядной сортировки имён (по 4 символа на уровень)
+    private static final int MAX_NAME_DEPTH = 64;
+
+    private final ImageInfoTableModel model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private ImageInfoFilter filter;
+
+    private int sortColumn = -1;
+    private boolean descending;
+    private int[] stringRanks;
+    // Отключается на время поразрядной сортировки имён, где равные ключи разбираются отдельно
+    private boolean compareFullNames = true;
+
+    private int modelRowCount;
+    // null - тождественное отображение (нет ни сортировки, ни фильтра)
+    private int[] viewToModel;
+    private long[] viewKeys;
+    private int[] modelToView;
+    private int viewRowCount;
+    private int[] rowBuffer = new int[0];
+    private long[] keyBuffer = new long[0];
+
+    public ImageInfoRowSorter(ImageInfoTableModel model) {
+        this.model = model;
+        this.modelRowCount = model.getRowCount();
+    }
+
+    @Override
+    public ImageInfoTableModel getModel() {
+        return model;
+    }
+
+    public void setFilter(ImageInfoFilter filter) {
+        this.filter = filter == null || filter.isEmpty() ? null : filter;
+        resort();
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        if (column == ImageInfoTableModel.COLUMN_THUMBNAIL) {
+            return; // Эскизы не сортируются
+        }
+        SortOrder order = SortOrder.ASCENDING;
+        if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column
+                && sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING) {
+            order = SortOrder.DESCENDING;
+        }
+        setSortKeys(Collections.singletonList(new SortKey(column, order)));
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        if (keys == null || keys.isEmpty()) {
+            sortKeys = Collections.emptyList();
+            sortColumn = -1;
+        } else {
+            // Поддерживается один ключ сортировки
+            SortKey key = keys.get(0);
+            sortKeys = Collections.singletonList(key);
+            sortColumn = key.getSortOrder() == SortOrder.UNSORTED ? -1 : key.getColumn();
+            descending = key.getSortOrder() == SortOrder.DESCENDING;
+        }
+        fireSortOrderChanged();
+        resort();
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (viewToModel == null) {
+            return index;
+        }
+        if (index < 0 || index >= viewRowCount) {
+            throw new IndexOutOfBoundsException("Invalid index");
+        }
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (viewToModel == null) {
+            return index;
+        }
+        if (index < 0 || index >= modelRowCount) {
+            throw new IndexOutOfBoundsException("Invalid index");
+        }
+        return modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewToModel == null ? modelRowCount : viewRowCount;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return modelRowCount;
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        allRowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        modelRowCount = model.getRowCount();
+        rebuild();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        int previousCount = modelRowCount;
+        modelRowCount = model.getRowCount();
+        if (!isActive()) {
+            return;
+        }
+        if (firstRow != previousCount || !refreshStringRanks()) {
+            rebuild(); // Вставка не в конец или изменился порядок строк словаря
+            return;
+        }
+
+        // Новые строки фильтруются и сортируются отдельно, затем сливаются с уже упорядоченными
+        int batchSize = endRow - firstRow + 1;
+        int[] addedRows = new int[batchSize];
+        long[] addedKeys = new long[batchSize];
+        int addedCount = 0;
+        for (int row = firstRow; row <= endRow; row++) {
+            if (filter == null || filter.accept(model, row)) {
+                addedRows[addedCount] = row;
+                addedKeys[addedCount] = sortKey(row);
+                addedCount++;
+            }
+        }
+        sort(addedKeys, addedRows, addedCount);
+
+        int total = viewRowCount + addedCount;
+        if (rowBuffer.length < total) {
+            rowBuffer = new int[total + total / 2];
+            keyBuffer = new long[rowBuffer.length];
+        }
+        int[] mergedRows = rowBuffer;
+        long[] mergedKeys = keyBuffer;
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < viewRowCount && j < addedCount) {
+            if (compare(viewKeys[i], viewToModel[i], addedKeys[j], addedRows[j]) <= 0) {
+                mergedKeys[k] = viewKeys[i];
+                mergedRows[k++] = viewToModel[i++];
+            } else {
+                mergedKeys[k] = addedKeys[j];
+                mergedRows[k++] = addedRows[j++];
+            }
+        }
+        System.arraycopy(viewToModel, i, mergedRows, k, viewRowCount - i);
+        System.arraycopy(viewKeys, i, mergedKeys, k, viewRowCount - i);
+        k += viewRowCount - i;
+        System.arraycopy(addedRows, j, mergedRows, k, addedCount - j);
+        System.arraycopy(addedKeys, j, mergedKeys, k, addedCount - j);
+
+        // Буферы меняются местами, чтобы не выделять массивы на каждую пачку
+        rowBuffer = viewToModel;
+        keyBuffer = viewKeys;
+        viewToModel = mergedRows;
+        viewKeys = mergedKeys;
+        viewRowCount = total;
+        updateModelToView();
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        modelRowCount = model.getRowCount();
+        rebuild();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        if (isActive()) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        if (isActive()) {
+            rebuild();
+        }
+    }
+
+    private boolean isActive() {
+        return sortColumn >= 0 || filter != null;
+    }
+
+    // Пересортировка по запросу пользователя с уведомлением таблицы
+    private void resort() {
+        int[] lastViewToModel = snapshotViewToModel();
+        rebuild();
+        fireRowSorterChanged(lastViewToModel);
+    }
+
+    private void rebuild() {
+        if (!isActive()) {
+            viewToModel = null;
+            viewKeys = null;
+            modelToView = null;
+            viewRowCount = 0;
+            return;
+        }
+        stringRanks = null;
+        refreshStringRanks();
+
+        int[] rows = new int[modelRowCount];
+        long[] keys = new long[modelRowCount];
+        int count = 0;
+        for (int row = 0; row < modelRowCount; row++) {
+            if (filter == null || filter.accept(model, row)) {
+                rows[count] = row;
+                keys[count] = sortKey(row);
+                count++;
+            }
+        }
+        sort(keys, rows, count);
+        viewToModel = rows;
+        viewKeys = keys;
+        viewRowCount = count;
+        updateModelToView();
+    }
+
+    // Для строковых столбцов ключ - ранг строки в словаре. Возвращает false, если ранги
+    // изменились (в словаре появились новые строки) и ключи уже упорядоченных строк устарели
+    private boolean refreshStringRanks() {
+        if (!isStringColumn(sortColumn)) {
+            return true;
+        }
+        int[] ranks = model.getStringRanks();
+        boolean unchanged = ranks == stringRanks;
+        stringRanks = ranks;
+        return unchanged;
+    }
+
+    private boolean isStringColumn(int column) {
+        return column == ImageInfoTableModel.COLUMN_FORMAT
+                || column == ImageInfoTableModel.COLUMN_COMPRESSION
+                || column == ImageInfoTableModel.COLUMN_ADDITIONAL_INFO;
+    }
+
+    private void updateModelToView() {
+        if (modelToView == null || modelToView.length < modelRowCount) {
+            modelToView = new int[Math.max(modelRowCount, modelToView == null ? 0 : modelToView.length * 2)];
+        }
+        if (filter != null) {
+            Arrays.fill(modelToView, 0, modelRowCount, -1);
+        }
+        for (int view = 0; view < viewRowCount; view++) {
+            modelToView[viewToModel[view]] = view;
+        }
+    }
+
+    private int[] snapshotViewToModel() {
+        int count = getViewRowCount();
+        int[] snapshot = new int[count];
+        for (int i = 0; i < count; i++) {
+            snapshot[i] = viewToModel == null ? i : viewToModel[i];
+        }
+        return snapshot;
+    }
+
+    // Неотрицательный ключ, порядок которого (без знака) совпадает с порядком значений столбца
+    private long sortKey(int row) {
+        switch (sortColumn) {
+            case ImageInfoTableModel.COLUMN_NAME:
+                return nameKey(model.getFilePath(row), 0);
+            case ImageInfoTableModel.COLUMN_SIZE:
+                return model.getFileSize(row);
+            case ImageInfoTableModel.COLUMN_RESOLUTION:
+                return Double.doubleToLongBits(Math.max(0, model.getResolution(row)));
+            case ImageInfoTableModel.COLUMN_DIMENSIONS:
+                return (long) model.getImageWidth(row) * model.getImageHeight(row);
+            case ImageInfoTableModel.COLUMN_COLOR_DEPTH:
+                return model.getColorDepth(row);
+            case ImageInfoTableModel.COLUMN_DUPLICATE_GROUP:
+                int group = model.getDuplicateGroup(row);
+                return group > 0 ? group : Integer.MAX_VALUE; // Файлы без дубликатов - в конце
+            case ImageInfoTableModel.COLUMN_FORMAT:
+            case ImageInfoTableModel.COLUMN_COMPRESSION:
+            case ImageInfoTableModel.COLUMN_ADDITIONAL_INFO:
+                int code = model.getStringCode(row, sortColumn);
+                return code < 0 ? 0 : stringRanks[code] + 1L; // null - в начале
+            default:
+                return 0;
+        }
+    }
+
+    // 4 символа имени в нижнем регистре по 16 бит, начиная с символа depth * 4
+    private long nameKey(String path, int depth) {
+        int start = path.lastIndexOf(File.separatorChar) + 1 + depth * 4;
+        long key = 0;
+        for (int i = 0; i < 4; i++) {
+            int index = start + i;
+            char c = index < path.length() ? Character.toLowerCase(path.charAt(index)) : 0;
+            key = (key << 16) | c;
+        }
+        return key;
+    }
+
+    // Сортировка слиянием по парам (ключ, строка) без упаковки в объекты
+    private void sort(long[] keys, int[] rows, int count) {
+        if (sortColumn < 0 || count < 2) {
+            return;
+        }
+        long[] tempKeys = new long[count];
+        int[] tempRows = new int[count];
+        if (sortColumn != ImageInfoTableModel.COLUMN_NAME) {
+            mergeSort(keys, rows, tempKeys, tempRows, 0, count);
+            return;
+        }
+
+        compareFullNames = false;
+        try {
+            sortNames(keys, rows, tempKeys, tempRows, 0, count, 0);
+        } finally {
+            compareFullNames = true;
+        }
+        // Для слияния с новыми пачками нужны ключи первого уровня
+        for (int i = 0; i < count; i++) {
+            keys[i] = nameKey(model.getFilePath(rows[i]), 0);
+        }
+    }
+
+    // Многоуровневая сортировка имён: общие префиксы (IMG_, DSC_...) разбираются
+    // следующими 4 символами только внутри групп с равным ключом
+    private void sortNames(long[] keys, int[] rows, long[] tempKeys, int[] tempRows, int from, int to, int depth) {
+        mergeSort(keys, rows, tempKeys, tempRows, from, to);
+        int runStart = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i < to && keys[i] == keys[runStart]) {
+                continue;
+            }
+            // Младшие 16 бит равны 0 - имя закончилось, дальше сравнивать нечего
+            if (i - runStart > 1 && (keys[runStart] & 0xFFFF) != 0 && depth < MAX_NAME_DEPTH) {
+                for (int r = runStart; r < i; r++) {
+                    keys[r] = nameKey(model.getFilePath(rows[r]), depth + 1);
+                }
+                sortNames(keys, rows, tempKeys, tempRows, runStart, i, depth + 1);
+            }
+            runStart = i;
+        }
+    }
+
+    private void mergeSort(long[] keys, int[] rows, long[] tempKeys, int[] tempRows, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                long key = keys[i];
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= from && compare(keys[j], rows[j], key, row) > 0) {
+                    keys[j + 1] = keys[j];
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(keys, rows, tempKeys, tempRows, from, middle);
+        mergeSort(keys, rows, tempKeys, tempRows, middle, to);
+        if (compare(keys[middle - 1], rows[middle - 1], keys[middle], rows[middle]) <= 0) {
+            return; // Уже упорядочено
+        }
+        System.arraycopy(keys, from, tempKeys, from, to - from);
+        System.arraycopy(rows, from, tempRows, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < middle && compare(tempKeys[i], tempRows[i], tempKeys[j], tempRows[j]) <= 0)) {
+                keys[k] = tempKeys[i];
+                rows[k] = tempRows[i++];
+            } else {
+                keys[k] = tempKeys[j];
+                rows[k] = tempRows[j++];
+            }
+        }
+    }
+
+    // Строки с равными значениями остаются в порядке модели
+    private int compare(long keyA, int rowA, long keyB, int rowB) {
+        int result = Long.compareUnsigned(keyA, keyB);
+        if (result == 0) {
+            result = compareTies(rowA, rowB);
+        }
+        if (descending) {
+            result = -result;
+        }
+        return result != 0 ? result : Integer.compare(rowA, rowB);
+    }
+
+    // Уточнение для столбцов, ключ которых не передаёт порядок полностью
+    private int compareTies(int a, int b) {
+        switch (sortColumn) {
+            case ImageInfoTableModel.COLUMN_NAME:
+                return compareFullNames ? compareFileNames(model.getFilePath(a), model.getFilePath(b)) : 0;
+            case ImageInfoTableModel.COLUMN_DIMENSIONS:
+                return Integer.compare(model.getImageWidth(a), model.getImageWidth(b));
+            default:
+                return 0;
+        }
+    }
+
+    // Сравнение имён прямо внутри путей, без выделения подстрок
+    private int compareFileNames(String pathA, String pathB) {
+        int i = pathA.lastIndexOf(File.separatorChar) + 1;
+        int j = pathB.lastIndexOf(File.separatorChar) + 1;
+        while (i < pathA.length() && j < pathB.length()) {
+            char a = Character.toLowerCase(pathA.charAt(i++));
+            char b = Character.toLowerCase(pathB.charAt(j++));
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return (pathA.length() - i) - (pathB.length() - j);
+    }
+}
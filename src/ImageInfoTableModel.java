@@ -0,0 +1,301 @@
+import javax.swing.table.AbstractTableModel;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Строки хранятся вне кучи в ResultStore (записи фиксированной длины в отображённом файле),
+// повторяющиеся строки - кодами StringTable. Строки для отображения форматируются
+// только в getValueAt, т.е. для видимых ячеек
+public class ImageInfoTableModel extends AbstractTableModel {
+    public static final int COLUMN_NAME = 0;
+    public static final int COLUMN_FORMAT = 1;
+    public static final int COLUMN_SIZE = 2;
+    public static final int COLUMN_RESOLUTION = 3;
+    public static final int COLUMN_DIMENSIONS = 4;
+    public static final int COLUMN_COLOR_DEPTH = 5;
+    public static final int COLUMN_COMPRESSION = 6;
+    public static final int COLUMN_ADDITIONAL_INFO = 7;
+    public static final int COLUMN_DUPLICATE_GROUP = 8;
+    // Значения нет: ячейку рисует ThumbnailRenderer
+    public static final int COLUMN_THUMBNAIL = 9;
+
+    private static final String[] COLUMNS = {
+            "Имя файла", "Формат", "Размер файла", "Разрешение (dpi)",
+            "Размеры (пикс.)", "Глубина цвета", "Сжатие", "Доп. информация", "Дубликаты", "Эскиз"
+    };
+
+    private final StringTable strings = new StringTable();
+    private final ResultStore store;
+    // Строится при первом изменении в режиме наблюдения, до этого не занимает памяти
+    private PathIndex pathIndex;
+
+    public ImageInfoTableModel() {
+        try {
+            store = ResultStore.createTemporary();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать файл результатов", e);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return store.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case COLUMN_NAME: return getFileName(row);
+            case COLUMN_FORMAT: return strings.get(store.getFormatCode(row));
+            case COLUMN_SIZE: return ImageInfo.formatSize(store.getFileSize(row));
+            case COLUMN_RESOLUTION: return ImageInfo.formatResolution(store.getResolution(row));
+            case COLUMN_DIMENSIONS: return ImageInfo.formatDimensions(store.getWidth(row), store.getHeight(row));
+            case COLUMN_COLOR_DEPTH: return ImageInfo.formatColorDepth(store.getColorDepth(row));
+            case COLUMN_COMPRESSION: return strings.get(store.getCompressionCode(row));
+            case COLUMN_ADDITIONAL_INFO: return strings.get(store.getAdditionalInfoCode(row));
+            case COLUMN_DUPLICATE_GROUP:
+                int group = store.getDuplicateGroup(row);
+                return group > 0 ? "Группа " + group : "";
+            default: return null;
+        }
+    }
+
+    // Добавление пачки строк - одно событие таблицы на всю пачку
+    public void addAll(List<ImageInfo> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int first = store.size();
+        try {
+            for (ImageInfo info : batch) {
+                store.add(info, strings.intern(info.getFormat()), strings.intern(info.getCompression()),
+                        strings.intern(info.getAdditionalInfo()));
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка записи файла результатов: " + e.getMessage());
+        }
+        if (pathIndex != null) {
+            for (int row = first; row < store.size(); row++) {
+                pathIndex.put(store.getPath(row), row);
+            }
+        }
+        if (store.size() > first) {
+            fireTableRowsInserted(first, store.size() - 1);
+        }
+    }
+
+    // Изменения из режима наблюдения: строки обновляются и удаляются на месте, новые файлы
+    // добавляются в конец. Удаление переносит на место строки последнюю, поэтому после
+    // удалений таблица уведомляется целиком, иначе - только об изменённом диапазоне
+    public void applyChanges(List<ImageInfo> updated, List<String> removedFiles, List<String> removedDirectories) {
+        if (pathIndex == null) {
+            pathIndex = new PathIndex(store::getPath, store.size());
+            for (int row = 0; row < store.size(); row++) {
+                pathIndex.put(store.getPath(row), row);
+            }
+        }
+
+        boolean removed = false;
+        for (String path : removedFiles) {
+            removed |= removeRow(path);
+        }
+        for (String directory : removedDirectories) {
+            String prefix = directory.endsWith(File.separator) ? directory : directory + File.separator;
+            for (int row = store.size() - 1; row >= 0; row--) {
+                String path = store.getPath(row);
+                if (path.startsWith(prefix)) {
+                    removed |= removeRow(path);
+                }
+            }
+        }
+
+        int firstUpdated = Integer.MAX_VALUE;
+        int lastUpdated = -1;
+        int firstInserted = store.size();
+        try {
+            for (ImageInfo info : updated) {
+                int formatCode = strings.intern(info.getFormat());
+                int compressionCode = strings.intern(info.getCompression());
+                int additionalInfoCode = strings.intern(info.getAdditionalInfo());
+                int row = pathIndex.find(info.getFilePath());
+                if (row >= 0) {
+                    store.update(row, info, formatCode, compressionCode, additionalInfoCode);
+                    firstUpdated = Math.min(firstUpdated, row);
+                    lastUpdated = Math.max(lastUpdated, row);
+                } else {
+                    store.add(info, formatCode, compressionCode, additionalInfoCode);
+                    pathIndex.put(info.getFilePath(), store.size() - 1);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка записи файла результатов: " + e.getMessage());
+        }
+
+        if (removed) {
+            fireTableDataChanged();
+            return;
+        }
+        if (lastUpdated >= 0) {
+            fireTableRowsUpdated(firstUpdated, lastUpdated);
+        }
+        if (store.size() > firstInserted) {
+            fireTableRowsInserted(firstInserted, store.size() - 1);
+        }
+    }
+
+    private boolean removeRow(String path) {
+        int row = pathIndex.find(path);
+        if (row < 0) {
+            return false;
+        }
+        pathIndex.remove(path);
+        int last = store.size() - 1;
+        if (row != last) {
+            pathIndex.move(store.getPath(last), row);
+        }
+        store.remove(row);
+        return true;
+    }
+
+    // Номера групп проставляются по путям одним проходом по строкам после сканирования
+    public void setDuplicateGroups(List<DuplicateGroup> groups) {
+        if (groups.isEmpty() || store.size() == 0) {
+            return;
+        }
+        Map<String, Integer> groupByPath = new HashMap<>();
+        for (DuplicateGroup group : groups) {
+            for (String path : group.getPaths()) {
+                groupByPath.put(path, group.getId());
+            }
+        }
+        int rowCount = store.size();
+        for (int row = 0; row < rowCount; row++) {
+            Integer group = groupByPath.get(store.getPath(row));
+            store.setDuplicateGroup(row, group != null ? group : 0);
+        }
+        fireTableRowsUpdated(0, rowCount - 1);
+    }
+
+    public void clear() {
+        pathIndex = null;
+        store.clear();
+        strings.clear();
+        fireTableDataChanged();
+    }
+
+    // Вызывается в EDT при закрытии окна: файлы хранилища удаляются
+    public void close() {
+        pathIndex = null;
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Ошибка закрытия файла результатов: " + e.getMessage());
+        }
+    }
+
+    // Имя файла не хранится отдельно - выделяется из пути при отображении
+    public String getFileName(int row) {
+        String path = store.getPath(row);
+        return path.substring(path.lastIndexOf(File.separatorChar) + 1);
+    }
+
+    public String getFilePath(int row) {
+        return store.getPath(row);
+    }
+
+    public long getFileSize(int row) {
+        return store.getFileSize(row);
+    }
+
+    public long getLastModified(int row) {
+        return store.getLastModified(row);
+    }
+
+    public int getImageWidth(int row) {
+        return store.getWidth(row);
+    }
+
+    public int getImageHeight(int row) {
+        return store.getHeight(row);
+    }
+
+    public int getColorDepth(int row) {
+        return store.getColorDepth(row);
+    }
+
+    public double getResolution(int row) {
+        return store.getResolution(row);
+    }
+
+    public String getFormat(int row) {
+        return strings.get(store.getFormatCode(row));
+    }
+
+    public int getDuplicateGroup(int row) {
+        return store.getDuplicateGroup(row);
+    }
+
+    public String getCompression(int row) {
+        return strings.get(store.getCompressionCode(row));
+    }
+
+    // Код строкового значения (формат, сжатие, доп. информация) в словаре модели
+    public int getStringCode(int row, int column) {
+        switch (column) {
+            case COLUMN_FORMAT: return store.getFormatCode(row);
+            case COLUMN_COMPRESSION: return store.getCompressionCode(row);
+            case COLUMN_ADDITIONAL_INFO: return store.getAdditionalInfoCode(row);
+            default: throw new IllegalArgumentException("Столбец не хранится кодами: " + column);
+        }
+    }
+
+    // Ранги строк словаря для сортировки: индекс - код, значение - позиция по алфавиту
+    public int[] getStringRanks() {
+        return strings.ranks();
+    }
+
+    // Восстанавливает объект ImageInfo для строки
+    public ImageInfo getImageInfo(int row) {
+        ImageInfo info = new ImageInfo();
+        info.setFilePath(store.getPath(row));
+        info.setFileName(getFileName(row));
+        info.setFileSize(store.getFileSize(row));
+        info.setLastModified(store.getLastModified(row));
+        info.setWidth(store.getWidth(row));
+        info.setHeight(store.getHeight(row));
+        info.setColorDepth(store.getColorDepth(row));
+        info.setResolution(store.getResolution(row));
+        info.setFormat(strings.get(store.getFormatCode(row)));
+        info.setCompression(strings.get(store.getCompressionCode(row)));
+        info.setAdditionalInfo(strings.get(store.getAdditionalInfoCode(row)));
+        return info;
+    }
+
+    public List<ImageInfo> getRows() {
+        int rowCount = store.size();
+        List<ImageInfo> rows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(getImageInfo(row));
+        }
+        return rows;
+    }
+}
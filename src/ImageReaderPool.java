@@ -0,0 +1,101 @@
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Запасной путь через ImageIO без перебора всех SPI на каждый файл:
+// - ImageReaderSpi запоминается по первым байтам файла (сигнатуре); при повторной встрече
+//   проверяется только он один, а не все зарегистрированные. Промахи не запоминаются: 4 байта
+//   не определяют формат однозначно, и неудача одного файла не закрывает путь остальным с той же сигнатурой
+// - экземпляры ImageReader не создаются заново, а сбрасываются (reset) и переиспользуются.
+//   Пул общий, а не на поток, чтобы работать и с виртуальными потоками
+public class ImageReaderPool {
+    private static final int SIGNATURE_LENGTH = 4;
+    // Ограничения на случай множества файлов неизвестных форматов
+    private static final int MAX_SIGNATURES = 1024;
+    private static final int MAX_IDLE_READERS = 64;
+
+    static {
+        // Только чтение заголовков: дисковый кэш ImageIO не нужен
+        ImageIO.setUseCache(false);
+    }
+
+    private final Map<Integer, ImageReaderSpi> providers = new ConcurrentHashMap<>();
+    private final Map<ImageReaderSpi, Queue<ImageReader>> idleReaders = new ConcurrentHashMap<>();
+
+    // Возвращает читатель с установленным входом или null, если формат не поддерживается.
+    // После использования читатель возвращается через release
+    public ImageReader acquire(ImageInputStream iis) throws IOException {
+        ImageReaderSpi provider = findProvider(iis);
+        if (provider == null) {
+            return null;
+        }
+        Queue<ImageReader> idle = idleReaders.get(provider);
+        ImageReader reader = idle != null ? idle.poll() : null;
+        if (reader == null) {
+            reader = provider.createReaderInstance();
+        }
+        reader.setInput(iis, true);
+        return reader;
+    }
+
+    public void release(ImageReader reader) {
+        try {
+            reader.reset();
+        } catch (RuntimeException e) {
+            reader.dispose(); // Читатель в неизвестном состоянии не переиспользуется
+            return;
+        }
+        Queue<ImageReader> idle = idleReaders.computeIfAbsent(reader.getOriginatingProvider(),
+                k -> new ConcurrentLinkedQueue<>());
+        if (idle.size() < MAX_IDLE_READERS) {
+            idle.offer(reader);
+        } else {
+            reader.dispose();
+        }
+    }
+
+    private ImageReaderSpi findProvider(ImageInputStream iis) throws IOException {
+        int signature = readSignature(iis);
+        ImageReaderSpi cached = providers.get(signature);
+        if (cached != null && cached.canDecodeInput(iis)) {
+            return cached;
+        }
+
+        ImageReaderSpi provider = null;
+        Iterator<ImageReaderSpi> candidates = IIORegistry.getDefaultInstance()
+                .getServiceProviders(ImageReaderSpi.class, true);
+        while (candidates.hasNext()) {
+            ImageReaderSpi candidate = candidates.next();
+            if (candidate.canDecodeInput(iis)) {
+                provider = candidate;
+                break;
+            }
+        }
+        if (provider != null && providers.size() < MAX_SIGNATURES) {
+            providers.put(signature, provider);
+        }
+        return provider;
+    }
+
+    private static int readSignature(ImageInputStream iis) throws IOException {
+        iis.mark();
+        try {
+            int signature = 0;
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                int b = iis.read();
+                signature = (signature << 8) | Math.max(b, 0);
+            }
+            return signature;
+        } finally {
+            iis.reset();
+        }
+    }
+}
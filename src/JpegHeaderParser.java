@@ -0,0 +1,201 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class JpegHeaderParser implements HeaderParser {
+    private static final int APP0 = 0xE0;
+    private static final int APP1 = 0xE1;
+    private static final int SOS = 0xDA;
+    private static final int EOI = 0xD9;
+
+    @Override
+    public String getFormatName() {
+        return "JPEG";
+    }
+
+    @Override
+    public boolean matches(ByteBuffer header) {
+        return header.limit() >= 3
+                && (header.get(0) & 0xFF) == 0xFF
+                && (header.get(1) & 0xFF) == 0xD8
+                && (header.get(2) & 0xFF) == 0xFF;
+    }
+
+    @Override
+    public boolean parse(HeaderSource source, ImageInfo info) throws IOException {
+        info.setCompression("JPEG (с потерями)");
+
+        boolean hasExif = false;
+        double density = 0;
+
+        // Переходим от маркера к маркеру по длинам сегментов, не читая их содержимое.
+        // Стоимость зависит от числа сегментов, а не от размера файла
+        long pos = 2;
+        while (pos + 4 <= source.size()) {
+            ByteBuffer markerBytes = source.read(pos, 4).order(ByteOrder.BIG_ENDIAN);
+            if (markerBytes.limit() < 4 || (markerBytes.get(0) & 0xFF) != 0xFF) {
+                break; // Повреждённый поток маркеров
+            }
+            int marker = markerBytes.get(1) & 0xFF;
+            if (marker == 0xFF) {
+                pos++; // Байт-заполнитель
+                continue;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                pos += 2; // Маркеры без длины (TEM, RSTn)
+                continue;
+            }
+            if (marker == EOI || marker == SOS) {
+                break; // SOF уже не встретится
+            }
+
+            int segmentLength = markerBytes.getShort(2) & 0xFFFF;
+            if (segmentLength < 2) {
+                break;
+            }
+
+            if (marker == APP0 && density <= 0) {
+                density = readJfifDensity(source.read(pos + 4, 14));
+            } else if (marker == APP1 && !hasExif) {
+                if (isExif(source.read(pos + 4, 6))) {
+                    hasExif = true;
+                    if (density <= 0) {
+                        density = readExifDensity(source, pos + 10);
+                    }
+                }
+            } else if (isSofMarker(marker)) {
+                ByteBuffer sof = source.read(pos + 4, 6).order(ByteOrder.BIG_ENDIAN);
+                if (sof.limit() < 6) {
+                    break;
+                }
+                int precision = sof.get(0) & 0xFF;
+                int height = sof.getShort(1) & 0xFFFF;
+                int width = sof.getShort(3) & 0xFFFF;
+                int components = sof.get(5) & 0xFF;
+
+                info.setWidth(width);
+                info.setHeight(height);
+                info.setColorDepth(precision * components);
+                info.setCompression(getCompression(marker));
+                info.setAdditionalInfo("Компонентов: " + components
+                        + ", точность: " + precision + " бит, "
+                        + (isProgressive(marker) ? "прогрессивный" : "последовательный")
+                        + (hasExif ? ", EXIF" : ""));
+                if (density > 0) {
+                    info.setResolution(density);
+                }
+                return width > 0 && height > 0;
+            }
+            pos += 2 + segmentLength;
+        }
+
+        if (info.getColorDepth() == 0) {
+            info.setColorDepth(24); // Стандартная глубина для JPEG
+        }
+        if (density > 0) {
+            info.setResolution(density);
+        }
+        return false;
+    }
+
+    // APP0: "JFIF\0", версия (2), единицы (1), Xdensity (2), Ydensity (2)
+    private double readJfifDensity(ByteBuffer app0) {
+        if (app0.limit() < 12
+                || app0.get(0) != 'J' || app0.get(1) != 'F' || app0.get(2) != 'I'
+                || app0.get(3) != 'F' || app0.get(4) != 0) {
+            return 0;
+        }
+        app0.order(ByteOrder.BIG_ENDIAN);
+        int units = app0.get(7) & 0xFF;
+        int xDensity = app0.getShort(8) & 0xFFFF;
+        switch (units) {
+            case 1: return xDensity;        // точек на дюйм
+            case 2: return xDensity * 2.54; // точек на сантиметр
+            default: return 0;              // только соотношение сторон
+        }
+    }
+
+    private boolean isExif(ByteBuffer app1) {
+        return app1.limit() >= 6
+                && app1.get(0) == 'E' && app1.get(1) == 'x' && app1.get(2) == 'i'
+                && app1.get(3) == 'f' && app1.get(4) == 0 && app1.get(5) == 0;
+    }
+
+    // XResolution и ResolutionUnit из IFD0 встроенной TIFF-структуры EXIF
+    private double readExifDensity(HeaderSource source, long tiffStart) throws IOException {
+        TiffDirectoryReader exif = TiffDirectoryReader.open(source, tiffStart);
+        if (exif == null || !exif.readDirectory(exif.getFirstDirectoryOffset())) {
+            return 0;
+        }
+        return exif.getDpi();
+    }
+
+    // Встроенный эскиз из IFD1 блока EXIF (обычно 160x120) или null, если его нет.
+    // Читаются только маркеры до APP1 и сам эскиз, основное изображение не декодируется
+    public byte[] readExifThumbnail(HeaderSource source) throws IOException {
+        long pos = 2;
+        while (pos + 4 <= source.size()) {
+            ByteBuffer markerBytes = source.read(pos, 4).order(ByteOrder.BIG_ENDIAN);
+            if (markerBytes.limit() < 4 || (markerBytes.get(0) & 0xFF) != 0xFF) {
+                return null;
+            }
+            int marker = markerBytes.get(1) & 0xFF;
+            if (marker == 0xFF) {
+                pos++;
+                continue;
+            }
+            if (marker == EOI || marker == SOS || isSofMarker(marker)) {
+                return null; // EXIF стоит перед кадром
+            }
+            int segmentLength = markerBytes.getShort(2) & 0xFFFF;
+            if (segmentLength < 2) {
+                return null;
+            }
+            if (marker == APP1 && isExif(source.read(pos + 4, 6))) {
+                return readThumbnail(source, pos + 10, pos + 2 + segmentLength);
+            }
+            pos += 2 + segmentLength;
+        }
+        return null;
+    }
+
+    // Эскиз - JPEG по смещению JPEGInterchangeFormat от начала TIFF-структуры, целиком внутри APP1
+    private byte[] readThumbnail(HeaderSource source, long tiffStart, long segmentEnd) throws IOException {
+        TiffDirectoryReader exif = TiffDirectoryReader.open(source, tiffStart);
+        if (exif == null || !exif.readDirectory(exif.getFirstDirectoryOffset())
+                || !exif.readDirectory(exif.getNextDirectoryOffset())) {
+            return null;
+        }
+        long offset = exif.getLong(TiffDirectoryReader.JPEG_INTERCHANGE_FORMAT, 0);
+        long length = exif.getLong(TiffDirectoryReader.JPEG_INTERCHANGE_FORMAT_LENGTH, 0);
+        if (offset <= 0 || length < 4 || length > ChannelHeaderSource.READ_BUFFER_SIZE
+                || tiffStart + offset + length > segmentEnd) {
+            return null;
+        }
+        ByteBuffer data = source.read(tiffStart + offset, (int) length);
+        if (data.limit() < length || !matches(data)) {
+            return null;
+        }
+        byte[] thumbnail = new byte[(int) length];
+        data.get(0, thumbnail);
+        return thumbnail;
+    }
+
+    // SOF0-SOF15, кроме DHT (C4), JPG (C8) и DAC (CC)
+    private boolean isSofMarker(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF
+                && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private boolean isProgressive(int marker) {
+        return marker == 0xC2 || marker == 0xC6 || marker == 0xCA || marker == 0xCE;
+    }
+
+    private String getCompression(int marker) {
+        boolean lossless = marker == 0xC3 || marker == 0xC7 || marker == 0xCB || marker == 0xCF;
+        if (lossless) {
+            return "JPEG (без потерь)";
+        }
+        return isProgressive(marker) ? "JPEG прогрессивный (с потерями)" : "JPEG baseline (с потерями)";
+    }
+}
@@ -1,7 +1,13 @@
 import javax.swing.*;
+import java.util.Arrays;
 
 public class Main {
     public static void main(String[] args) {
+        // java Main --cli <папка> ... - пакетный режим без окна
+        if (args.length > 0 && args[0].equals("--cli")) {
+            System.exit(ImageInfoCli.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -0,0 +1,110 @@
+import java.util.function.IntFunction;
+
+// Индекс "путь -> номер строки" без объекта на строку: открытая адресация с линейным
+// пробированием, в слоте - хэш пути и номер строки (8 байт). Сам путь не хранится,
+// а сверяется со строкой хранилища через pathOfRow
+public class PathIndex {
+    private static final int MIN_CAPACITY = 1024;
+
+    private final IntFunction<String> pathOfRow;
+    private int[] hashes;
+    // Номер строки + 1; 0 - пустой слот
+    private int[] rows;
+    private int mask;
+    private int size;
+
+    public PathIndex(IntFunction<String> pathOfRow, int expectedSize) {
+        this.pathOfRow = pathOfRow;
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    // Номер строки или -1
+    public int find(String path) {
+        int slot = findSlot(path);
+        return slot >= 0 ? rows[slot] - 1 : -1;
+    }
+
+    // Путь ещё не должен быть в индексе
+    public void put(String path, int row) {
+        if ((size + 1) * 2L > rows.length) {
+            grow();
+        }
+        insert(hash(path), row + 1);
+        size++;
+    }
+
+    public void remove(String path) {
+        int slot = findSlot(path);
+        if (slot >= 0) {
+            removeSlot(slot);
+            size--;
+        }
+    }
+
+    // Строка с этим путём получила новый номер
+    public void move(String path, int newRow) {
+        int slot = findSlot(path);
+        if (slot >= 0) {
+            rows[slot] = newRow + 1;
+        }
+    }
+
+    private int findSlot(String path) {
+        int hash = hash(path);
+        for (int slot = hash & mask; rows[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && path.equals(pathOfRow.apply(rows[slot] - 1))) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int hash, int rowPlusOne) {
+        int slot = hash & mask;
+        while (rows[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        rows[slot] = rowPlusOne;
+    }
+
+    // Удаление со сдвигом назад: без "надгробий", цепочки пробирования остаются короткими
+    private void removeSlot(int slot) {
+        int gap = slot;
+        for (int i = (slot + 1) & mask; rows[i] != 0; i = (i + 1) & mask) {
+            int home = hashes[i] & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                hashes[gap] = hashes[i];
+                rows[gap] = rows[i];
+                gap = i;
+            }
+        }
+        rows[gap] = 0;
+    }
+
+    private void grow() {
+        int[] oldHashes = hashes;
+        int[] oldRows = rows;
+        allocate(oldRows.length * 2);
+        for (int i = 0; i < oldRows.length; i++) {
+            if (oldRows[i] != 0) {
+                insert(oldHashes[i], oldRows[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        rows = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(String path) {
+        int h = path.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
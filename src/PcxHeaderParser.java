@@ -0,0 +1,52 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class PcxHeaderParser implements HeaderParser {
+    @Override
+    public String getFormatName() {
+        return "PCX";
+    }
+
+    @Override
+    public boolean matches(ByteBuffer header) {
+        if (header.limit() < 3 || (header.get(0) & 0xFF) != 10) {
+            return false;
+        }
+        int version = header.get(1) & 0xFF;
+        int encoding = header.get(2) & 0xFF;
+        return version <= 5 && version != 1 && encoding == 1;
+    }
+
+    @Override
+    public boolean parse(HeaderSource source, ImageInfo info) {
+        ByteBuffer header = source.prefix();
+        if (header.limit() < 128) {
+            return false;
+        }
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        // Размер из заголовка PCX
+        int xMin = header.getShort(4) & 0xFFFF;
+        int yMin = header.getShort(6) & 0xFFFF;
+        int xMax = header.getShort(8) & 0xFFFF;
+        int yMax = header.getShort(10) & 0xFFFF;
+        int width = xMax - xMin + 1;
+        int height = yMax - yMin + 1;
+
+        // Глубина цвета
+        int bitsPerPixel = header.get(3) & 0xFF;
+        int planes = header.get(65) & 0xFF;
+
+        // Разрешение HDpi (у многих программ поле пустое)
+        int hDpi = header.getShort(12) & 0xFFFF;
+
+        info.setWidth(width);
+        info.setHeight(height);
+        info.setColorDepth(bitsPerPixel * planes);
+        info.setCompression("RLE");
+        if (hDpi > 0) {
+            info.setResolution(hDpi);
+        }
+        return width > 0 && height > 0;
+    }
+}
@@ -0,0 +1,32 @@
+// Этапы обработки, для которых собираются гистограммы задержек
+public enum PipelineStage {
+    // Чтение одного каталога (без ожидания места в очереди)
+    DISCOVER("discover", "Обход каталога"),
+    // Открытие файла и чтение префикса (или создание ImageInputStream)
+    OPEN("open", "Открытие"),
+    // Выбор парсера по сигнатуре (или поиск ImageReader)
+    PROBE("probe", "Определение формата"),
+    // Разбор заголовка (или чтение размеров и метаданных через ImageIO)
+    PARSE("parse", "Разбор"),
+    // Передача результата в таблицу или вывод
+    PUBLISH("publish", "Публикация"),
+    // Хэширование содержимого при поиске дубликатов (частичное или полное)
+    HASH("hash", "Поиск дубликатов");
+
+    private final String key;
+    private final String title;
+
+    PipelineStage(String key, String title) {
+        this.key = key;
+        this.title = title;
+    }
+
+    // Имя этапа в отчёте JSON
+    public String getKey() {
+        return key;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+}
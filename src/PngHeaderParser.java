@@ -0,0 +1,97 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class PngHeaderParser implements HeaderParser {
+    // Предел числа блоков, просматриваемых до IDAT в поисках pHYs
+    private static final int MAX_CHUNKS = 1024;
+
+    private static final byte[] SIGNATURE = {
+            (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'
+    };
+
+    @Override
+    public String getFormatName() {
+        return "PNG";
+    }
+
+    @Override
+    public boolean matches(ByteBuffer header) {
+        if (header.limit() < SIGNATURE.length) {
+            return false;
+        }
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (header.get(i) != SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean parse(HeaderSource source, ImageInfo info) throws IOException {
+        ByteBuffer header = source.prefix();
+        header.order(ByteOrder.BIG_ENDIAN);
+        // Блок IHDR всегда идёт первым сразу после сигнатуры
+        if (header.limit() < 33
+                || header.get(12) != 'I' || header.get(13) != 'H'
+                || header.get(14) != 'D' || header.get(15) != 'R') {
+            return false;
+        }
+
+        int width = header.getInt(16);
+        int height = header.getInt(20);
+        int bitDepth = header.get(24) & 0xFF;
+        int colorType = header.get(25) & 0xFF;
+
+        info.setWidth(width);
+        info.setHeight(height);
+        info.setColorDepth(bitDepth * getChannels(colorType));
+        info.setCompression("Deflate");
+
+        double dpi = readPhysDensity(source);
+        if (dpi > 0) {
+            info.setResolution(dpi);
+        }
+        return width > 0 && height > 0;
+    }
+
+    // Блок pHYs обязан стоять до IDAT; блоки пропускаются по их длинам
+    private double readPhysDensity(HeaderSource source) throws IOException {
+        long pos = 33; // Сигнатура (8) + IHDR (25)
+        for (int i = 0; i < MAX_CHUNKS && pos + 8 <= source.size(); i++) {
+            ByteBuffer chunk = source.read(pos, 17).order(ByteOrder.BIG_ENDIAN);
+            if (chunk.limit() < 8) {
+                break;
+            }
+            long length = chunk.getInt(0) & 0xFFFFFFFFL;
+            if (isChunk(chunk, 'I', 'D', 'A', 'T') || isChunk(chunk, 'I', 'E', 'N', 'D')) {
+                break;
+            }
+            if (isChunk(chunk, 'p', 'H', 'Y', 's')) {
+                if (chunk.limit() < 17 || (chunk.get(16) & 0xFF) != 1) {
+                    return 0; // Единица не задана - только соотношение сторон
+                }
+                long pixelsPerMeter = chunk.getInt(8) & 0xFFFFFFFFL;
+                return pixelsPerMeter * 0.0254;
+            }
+            pos += 12 + length; // Длина + тип + данные + CRC
+        }
+        return 0;
+    }
+
+    private boolean isChunk(ByteBuffer chunk, char a, char b, char c, char d) {
+        return chunk.get(4) == a && chunk.get(5) == b && chunk.get(6) == c && chunk.get(7) == d;
+    }
+
+    private int getChannels(int colorType) {
+        switch (colorType) {
+            case 0: return 1; // Grayscale
+            case 2: return 3; // RGB
+            case 3: return 1; // Indexed
+            case 4: return 2; // Grayscale + Alpha
+            case 6: return 4; // RGB + Alpha
+            default: return 3;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ограниченная очередь найденных файлов в порядке ScanScheduler вместо FIFO.
+// Ключ считается один раз при добавлении; при смене фокуса пересчитывается только признак фокуса.
+// Ёмкость - жёсткий предел и для файлов в фокусе: фокус меняет только порядок выдачи
+public class PriorityScanQueue extends AbstractQueue<DiscoveredFile> implements BlockingQueue<DiscoveredFile> {
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry entry) -> entry.last)
+            .thenComparing(entry -> !entry.focus)
+            .thenComparingLong(entry -> entry.cost)
+            .thenComparingLong(entry -> entry.sequence);
+
+    private final int capacity;
+    private final ScanScheduler scheduler;
+    private PriorityQueue<Entry> entries = new PriorityQueue<>(ORDER);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private long sequence;
+
+    public PriorityScanQueue(int capacity, ScanScheduler scheduler) {
+        this.capacity = capacity;
+        this.scheduler = scheduler;
+    }
+
+    // Маркер конца очереди: выдаётся после всех файлов
+    public void putLast(DiscoveredFile marker) throws InterruptedException {
+        Entry entry = new Entry(marker, false, Long.MAX_VALUE);
+        entry.last = true;
+        lock.lockInterruptibly();
+        try {
+            while (entries.size() >= capacity) {
+                notFull.await();
+            }
+            insert(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Пересчёт фокуса для уже найденных файлов после его смены в интерфейсе
+    public void reprioritize() {
+        lock.lock();
+        try {
+            List<Entry> pending = new ArrayList<>(entries);
+            PriorityQueue<Entry> reordered = new PriorityQueue<>(Math.max(1, pending.size()), ORDER);
+            for (Entry entry : pending) {
+                entry.focus = !entry.last && scheduler.inFocus(entry.file);
+                reordered.add(entry);
+            }
+            entries = reordered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(DiscoveredFile file) {
+        Entry entry = newEntry(file);
+        lock.lock();
+        try {
+            if (entries.size() >= capacity) {
+                return false;
+            }
+            insert(entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(DiscoveredFile file, long timeout, TimeUnit unit) throws InterruptedException {
+        Entry entry = newEntry(file);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (entries.size() >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            insert(entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(DiscoveredFile file) throws InterruptedException {
+        Entry entry = newEntry(file);
+        lock.lockInterruptibly();
+        try {
+            while (entries.size() >= capacity) {
+                notFull.await();
+            }
+            insert(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DiscoveredFile take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (entries.isEmpty()) {
+                notEmpty.await();
+            }
+            return extract();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DiscoveredFile poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (entries.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return extract();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DiscoveredFile poll() {
+        lock.lock();
+        try {
+            return entries.isEmpty() ? null : extract();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DiscoveredFile peek() {
+        lock.lock();
+        try {
+            Entry entry = entries.peek();
+            return entry != null ? entry.file : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return Math.max(0, capacity - entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super DiscoveredFile> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super DiscoveredFile> target, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && !entries.isEmpty()) {
+                target.add(extract());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Снимок содержимого в произвольном порядке
+    @Override
+    public Iterator<DiscoveredFile> iterator() {
+        lock.lock();
+        try {
+            List<DiscoveredFile> snapshot = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                snapshot.add(entry.file);
+            }
+            return snapshot.iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Оценка стоимости - вне блокировки: она читает кэш и статистику
+    private Entry newEntry(DiscoveredFile file) {
+        return new Entry(file, scheduler.inFocus(file), scheduler.expectedCost(file));
+    }
+
+    private void insert(Entry entry) {
+        entry.sequence = sequence++;
+        entries.add(entry);
+        notEmpty.signal();
+    }
+
+    private DiscoveredFile extract() {
+        DiscoveredFile file = entries.poll().file;
+        notFull.signal();
+        return file;
+    }
+
+    private static class Entry {
+        final DiscoveredFile file;
+        final long cost;
+        boolean focus;
+        boolean last;
+        long sequence;
+
+        Entry(DiscoveredFile file, boolean focus, long cost) {
+            this.file = file;
+            this.focus = focus;
+            this.cost = cost;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+// Файл, снятый с обработки: превысил срок, лимит чтения или память
+public class QuarantineEntry {
+    private final String filePath;
+    private final long time;
+    private final long elapsedNanos;
+    private final String reason;
+
+    public QuarantineEntry(String filePath, long time, long elapsedNanos, String reason) {
+        this.filePath = filePath;
+        this.time = time;
+        this.elapsedNanos = elapsedNanos;
+        this.reason = reason;
+    }
+
+    public String getFilePath() { return filePath; }
+
+    // Момент отправки в карантин, мс с эпохи
+    public long getTime() { return time; }
+
+    // Сколько файл обрабатывался до снятия
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public String getReason() { return reason; }
+}
@@ -0,0 +1,104 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.List;
+import java.util.Locale;
+
+// Панель карантина под диагностикой: файлы, снятые с обработки по сроку, лимиту чтения
+// или нехватке памяти, с моментом снятия и причиной
+public class QuarantinePanel extends JPanel {
+    private static final int REFRESH_INTERVAL_MS = 1000;
+    private static final String[] COLUMNS = {"Время", "Файл", "Обрабатывался, с", "Причина"};
+
+    private final ImageInfoProcessor processor;
+    private JToggleButton toggleBtn;
+    private DefaultTableModel tableModel;
+    private JScrollPane tableScroll;
+    // Список карантина сканирования, показанный в таблице, и число показанных записей
+    private List<QuarantineEntry> shown;
+    private int shownCount = -1;
+
+    public QuarantinePanel(ImageInfoProcessor processor) {
+        this.processor = processor;
+        initializeComponents();
+        setupLayout();
+    }
+
+    private void initializeComponents() {
+        setBackground(new Color(248, 236, 236));
+
+        toggleBtn = new JToggleButton();
+        toggleBtn.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        toggleBtn.setFocusPainted(false);
+        toggleBtn.addActionListener(e -> setExpanded(toggleBtn.isSelected()));
+
+        tableModel = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(tableModel);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        table.setRowHeight(22);
+        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getColumnModel().getColumn(1).setPreferredWidth(400);
+        table.getColumnModel().getColumn(3).setPreferredWidth(250);
+
+        tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(0, 120));
+        tableScroll.setVisible(false);
+
+        // Список короткий и только растёт: новые записи дописываются в таблицу
+        Timer refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+        refreshTimer.start();
+        refresh();
+    }
+
+    private void setupLayout() {
+        setLayout(new BorderLayout(0, 5));
+        setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+
+        JPanel header = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        header.setOpaque(false);
+        header.add(toggleBtn);
+
+        add(header, BorderLayout.NORTH);
+        add(tableScroll, BorderLayout.CENTER);
+    }
+
+    private void setExpanded(boolean expanded) {
+        tableScroll.setVisible(expanded);
+        updateTitle();
+        revalidate();
+    }
+
+    private void refresh() {
+        List<QuarantineEntry> entries = processor.getQuarantine();
+        if (entries != shown) {
+            shown = entries; // Новое сканирование
+            tableModel.setRowCount(0);
+            shownCount = -1;
+        }
+        int count = entries.size();
+        if (count == shownCount) {
+            return;
+        }
+        for (int i = tableModel.getRowCount(); i < count; i++) {
+            QuarantineEntry entry = entries.get(i);
+            tableModel.addRow(new Object[] {
+                    String.format("%tT", entry.getTime()),
+                    entry.getFilePath(),
+                    String.format(Locale.ROOT, "%.1f", entry.getElapsedNanos() / 1e9),
+                    entry.getReason()
+            });
+        }
+        shownCount = count;
+        updateTitle();
+    }
+
+    private void updateTitle() {
+        toggleBtn.setText((toggleBtn.isSelected() ? "▾" : "▸") + " КАРАНТИН (" + Math.max(0, shownCount) + ")");
+    }
+}
@@ -0,0 +1,198 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Файл записей, который только дописывается; запись читается по смещению (из RecordIndex).
+// Дописанное копится в буфере и пишется пачкой. Чтение и запись позиционные, общего положения
+// в файле нет. Блокировка - ReentrantReadWriteLock, а не монитор: виртуальный поток, ждущий
+// записи на диск, не занимает поток-носитель.
+// FileChannel закрывается, если поток прерван во время операции (остановка сканирования прерывает
+// обработчики и обход), поэтому прерывание снимается на время операции, а канал, закрытый
+// прерыванием, открывается заново
+public class RecordFile implements Closeable {
+    public static final int BUFFER_SIZE = 256 * 1024;
+
+    private final File file;
+    private volatile FileChannel channel;
+    private volatile boolean closed;
+    private final ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    // Длина файла без буфера
+    private long written;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public RecordFile(File file) throws IOException {
+        this.file = file;
+        this.channel = openChannel();
+        this.written = channel.size();
+    }
+
+    // Длина вместе с ещё не записанным буфером
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return written + pending.position();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public byte[] read(long offset, int length) throws IOException {
+        byte[] data = new byte[length];
+        lock.readLock().lock();
+        try {
+            if (offset >= written) {
+                if (offset + length > written + pending.position()) {
+                    throw new EOFException();
+                }
+                pending.get((int) (offset - written), data);
+                return data;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        boolean interrupted = Thread.interrupted();
+        try {
+            FileChannel current = channel;
+            try {
+                readFully(current, ByteBuffer.wrap(data), offset);
+            } catch (ClosedByInterruptException e) {
+                Thread.interrupted();
+                interrupted = true;
+                reopen(current);
+                readFully(channel, ByteBuffer.wrap(data), offset);
+            }
+            return data;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Возвращает смещение записи; длина записи - не больше BUFFER_SIZE
+    public long append(byte[] record) throws IOException {
+        if (record.length > BUFFER_SIZE) {
+            throw new IOException("Запись длиннее буфера: " + record.length);
+        }
+        lock.writeLock().lock();
+        try {
+            if (pending.remaining() < record.length) {
+                flushPending();
+            }
+            long offset = written + pending.position();
+            pending.put(record);
+            return offset;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            flushPending();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Отбрасывает хвост файла (повреждённые записи); вызывается до дописывания
+    public void truncate(long size) throws IOException {
+        lock.writeLock().lock();
+        try {
+            flushPending();
+            channel.truncate(size);
+            written = Math.min(written, size);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                flushPending();
+            } finally {
+                closed = true;
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Вызывается под блокировкой записи. Запись позиционная, поэтому после повторного
+    // открытия канала буфер просто пишется снова с того же места
+    private void flushPending() throws IOException {
+        if (pending.position() == 0 || closed) {
+            return;
+        }
+        boolean interrupted = Thread.interrupted();
+        try {
+            pending.flip();
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    long position = written;
+                    while (pending.hasRemaining()) {
+                        position += channel.write(pending, position);
+                    }
+                    written = position;
+                    break;
+                } catch (ClosedByInterruptException e) {
+                    Thread.interrupted();
+                    interrupted = true;
+                    if (attempt > 0) {
+                        throw e;
+                    }
+                    channel = openChannel();
+                    pending.rewind();
+                }
+            }
+            pending.clear();
+        } catch (IOException e) {
+            // Буфер не записан: смещения его записей дальше указывают на другие данные,
+            // и владельцы индекса, сверяющие путь записи, получают промах
+            pending.clear();
+            throw e;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void reopen(FileChannel closedChannel) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!closed && channel == closedChannel) {
+                channel = openChannel();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void readFully(FileChannel source, ByteBuffer data, long offset) throws IOException {
+        while (data.hasRemaining()) {
+            if (source.read(data, offset + data.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+}
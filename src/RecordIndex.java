@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Индекс "путь -> запись в файле" без объекта на запись: открытая адресация с линейным
+// пробированием, в слоте - 64-битный хэш пути и смещение записи с её длиной в одном long
+// (16 байт на запись). Сам путь не хранится: владелец индекса читает запись и сверяет путь,
+// поэтому совпадение хэшей разных путей даёт лишь промах
+public class RecordIndex {
+    private static final int MIN_CAPACITY = 1024;
+    private static final int LENGTH_BITS = 24;
+    // Длина записи - до 16 МБ, смещение - до 2^40 байт
+    public static final int MAX_LENGTH = (1 << LENGTH_BITS) - 1;
+
+    private long[] hashes;
+    // Смещение и длина записи; 0 - пустой слот (смещение записи всегда больше 0)
+    private long[] positions;
+    private int mask;
+    private int size;
+
+    public RecordIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public static long hash(String path) {
+        XxHash64 hash = new XxHash64();
+        hash.update(ByteBuffer.wrap(path.getBytes(StandardCharsets.UTF_8)));
+        return hash.getValue();
+    }
+
+    public static long offset(long position) {
+        return position >>> LENGTH_BITS;
+    }
+
+    public static int length(long position) {
+        return (int) (position & MAX_LENGTH);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Положение записи или 0, если пути нет
+    public long get(long hash) {
+        for (int slot = slot(hash); positions[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash) {
+                return positions[slot];
+            }
+        }
+        return 0;
+    }
+
+    // Новая запись пути заменяет прежнюю
+    public void put(long hash, long offset, int length) {
+        long position = (offset << LENGTH_BITS) | length;
+        int slot = slot(hash);
+        for (; positions[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash) {
+                positions[slot] = position;
+                return;
+            }
+        }
+        hashes[slot] = hash;
+        positions[slot] = position;
+        size++;
+        if (size * 2L > positions.length) {
+            grow();
+        }
+    }
+
+    // Обход всех записей, например для переписывания файла
+    public void forEach(PositionConsumer consumer) throws IOException {
+        for (int slot = 0; slot < positions.length; slot++) {
+            if (positions[slot] != 0) {
+                consumer.accept(hashes[slot], positions[slot]);
+            }
+        }
+    }
+
+    public interface PositionConsumer {
+        void accept(long hash, long position) throws IOException;
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldHashes = hashes;
+        long[] oldPositions = positions;
+        allocate(oldPositions.length * 2);
+        for (int i = 0; i < oldPositions.length; i++) {
+            if (oldPositions[i] != 0) {
+                int slot = slot(oldHashes[i]);
+                while (positions[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = oldHashes[i];
+                positions[slot] = oldPositions[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        hashes = new long[capacity];
+        positions = new long[capacity];
+        mask = capacity - 1;
+    }
+}
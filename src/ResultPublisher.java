@@ -0,0 +1,68 @@
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Собирает результаты со всех обработчиков и передаёт их в таблицу пачками:
+// по таймеру раз в FLUSH_INTERVAL_MS или сразу, как накопится MAX_BATCH_SIZE строк
+public class ResultPublisher {
+    static final int FLUSH_INTERVAL_MS = 50;
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final ImageInfoPanel infoPanel;
+    private final ConcurrentLinkedQueue<ImageInfo> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Timer timer;
+
+    public ResultPublisher(ImageInfoPanel infoPanel) {
+        this.infoPanel = infoPanel;
+        this.timer = new Timer(FLUSH_INTERVAL_MS, e -> flush());
+        this.timer.setCoalesce(true);
+    }
+
+    public void start() {
+        timer.start();
+    }
+
+    // Вызывается из потоков-обработчиков
+    public void publish(ImageInfo info) {
+        pending.add(info);
+        if (pendingCount.incrementAndGet() >= MAX_BATCH_SIZE && flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    // Останавливает таймер и отправляет оставшиеся результаты
+    public void stop() {
+        timer.stop();
+        SwingUtilities.invokeLater(() -> {
+            while (flush()) {
+                // Выгружаем все оставшиеся пачки
+            }
+        });
+    }
+
+    // Выполняется в EDT. Возвращает true, если в очереди остались результаты
+    private boolean flush() {
+        flushScheduled.set(false);
+        List<ImageInfo> batch = new ArrayList<>(Math.min(pendingCount.get(), MAX_BATCH_SIZE));
+        ImageInfo info;
+        while (batch.size() < MAX_BATCH_SIZE && (info = pending.poll()) != null) {
+            batch.add(info);
+        }
+        pendingCount.addAndGet(-batch.size());
+
+        if (!batch.isEmpty()) {
+            infoPanel.addImageInfos(batch);
+        }
+
+        boolean remaining = pendingCount.get() > 0;
+        if (remaining && batch.size() == MAX_BATCH_SIZE && flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::flush);
+        }
+        return remaining;
+    }
+}
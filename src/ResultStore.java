@@ -0,0 +1,328 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Хранилище строк таблицы вне кучи: записи фиксированной длины в отображённом в память файле,
+// пути - в отдельном файле строк. Размер кучи не зависит от числа строк, а JTable читает
+// (и операционная система подгружает с диска) только видимые записи.
+// Используется только из EDT
+public class ResultStore implements Closeable {
+    static final int RECORD_SIZE = 64;
+    private static final String RECORDS_PREFIX = "imageinfo-records";
+    private static final String STRINGS_PREFIX = "imageinfo-strings";
+    private static final String STORE_DIRECTORY_PREFIX = "imageinfo-store-";
+
+    // Поля записи
+    private static final int FILE_SIZE = 0;
+    private static final int LAST_MODIFIED = 8;
+    private static final int RESOLUTION = 16;
+    private static final int PATH_OFFSET = 24;
+    private static final int PATH_LENGTH = 32;
+    private static final int WIDTH = 36;
+    private static final int HEIGHT = 40;
+    private static final int COLOR_DEPTH = 44;
+    private static final int FORMAT_CODE = 48;
+    private static final int COMPRESSION_CODE = 52;
+    private static final int ADDITIONAL_INFO_CODE = 56;
+    private static final int DUPLICATE_GROUP = 60;
+
+    private final MappedFile records;
+    private final MappedFile strings;
+    private int rowCount;
+    private long stringsSize;
+
+    private ResultStore(File recordFile, File stringFile) throws IOException {
+        this.records = new MappedFile(recordFile);
+        this.strings = new MappedFile(stringFile);
+    }
+
+    // Временные файлы в каталоге процесса imageinfo-store-<pid> внутри java.io.tmpdir
+    // (или -Dimageinfo.storeDir), удаляются в close(). Каталоги завершившихся процессов,
+    // оставшиеся после аварийного завершения, удаляются при следующем создании; каталоги
+    // других запущенных экземпляров не трогаются
+    public static ResultStore createTemporary() throws IOException {
+        String dir = System.getProperty("imageinfo.storeDir");
+        File parent = dir != null ? new File(dir) : new File(System.getProperty("java.io.tmpdir"));
+        deleteStale(parent);
+        File directory = new File(parent, STORE_DIRECTORY_PREFIX + ProcessHandle.current().pid());
+        if (!directory.isDirectory()) {
+            if (!directory.mkdirs()) {
+                throw new IOException("Не удалось создать каталог " + directory);
+            }
+            directory.deleteOnExit(); // Удаляется после файлов, зарегистрированных позже
+        }
+        File recordFile = File.createTempFile(RECORDS_PREFIX, ".bin", directory);
+        File stringFile = File.createTempFile(STRINGS_PREFIX, ".bin", directory);
+        recordFile.deleteOnExit();
+        stringFile.deleteOnExit();
+        return new ResultStore(recordFile, stringFile);
+    }
+
+    private static void deleteStale(File parent) {
+        File[] directories = parent.listFiles((d, name) -> name.startsWith(STORE_DIRECTORY_PREFIX));
+        if (directories == null) {
+            return;
+        }
+        for (File directory : directories) {
+            long pid;
+            try {
+                pid = Long.parseLong(directory.getName().substring(STORE_DIRECTORY_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (ProcessHandle.of(pid).isPresent()) {
+                continue; // Этот или другой запущенный экземпляр
+            }
+            File[] stale = directory.listFiles((d, name) -> name.endsWith(".bin")
+                    && (name.startsWith(RECORDS_PREFIX) || name.startsWith(STRINGS_PREFIX)));
+            if (stale != null) {
+                for (File file : stale) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    public void add(ImageInfo info, int formatCode, int compressionCode, int additionalInfoCode) throws IOException {
+        long position = (long) rowCount * RECORD_SIZE;
+        records.ensureMapped(position);
+        ByteBuffer segment = records.segment(position);
+        int base = records.offset(position);
+
+        byte[] path = info.getFilePath().getBytes(StandardCharsets.UTF_8);
+        long pathOffset = appendString(path);
+
+        segment.putLong(base + PATH_OFFSET, pathOffset);
+        segment.putInt(base + PATH_LENGTH, path.length);
+        putFields(segment, base, info, formatCode, compressionCode, additionalInfoCode);
+        rowCount++;
+    }
+
+    // Перезапись полей строки новыми данными того же файла (путь не меняется)
+    public void update(int row, ImageInfo info, int formatCode, int compressionCode, int additionalInfoCode) {
+        long position = (long) row * RECORD_SIZE;
+        putFields(records.segment(position), records.offset(position), info,
+                formatCode, compressionCode, additionalInfoCode);
+    }
+
+    // Удаление строки переносом на её место последней записи: O(1), но последняя строка
+    // получает номер row. Путь удалённой строки остаётся в файле строк до clear()
+    public void remove(int row) {
+        int last = rowCount - 1;
+        if (row != last) {
+            long from = (long) last * RECORD_SIZE;
+            long to = (long) row * RECORD_SIZE;
+            byte[] record = new byte[RECORD_SIZE];
+            records.segment(from).get(records.offset(from), record);
+            records.segment(to).put(records.offset(to), record);
+        }
+        rowCount = last;
+    }
+
+    private static void putFields(ByteBuffer segment, int base, ImageInfo info,
+                                  int formatCode, int compressionCode, int additionalInfoCode) {
+        segment.putLong(base + FILE_SIZE, info.getFileSize());
+        segment.putLong(base + LAST_MODIFIED, info.getLastModified());
+        segment.putDouble(base + RESOLUTION, info.getResolution());
+        segment.putInt(base + WIDTH, info.getWidth());
+        segment.putInt(base + HEIGHT, info.getHeight());
+        segment.putInt(base + COLOR_DEPTH, info.getColorDepth());
+        segment.putInt(base + FORMAT_CODE, formatCode);
+        segment.putInt(base + COMPRESSION_CODE, compressionCode);
+        segment.putInt(base + ADDITIONAL_INFO_CODE, additionalInfoCode);
+        segment.putInt(base + DUPLICATE_GROUP, 0);
+    }
+
+    // Файлы не усекаются: уже отображённые сегменты используются повторно
+    public void clear() {
+        rowCount = 0;
+        stringsSize = 0;
+    }
+
+    public String getPath(int row) {
+        long position = (long) row * RECORD_SIZE;
+        ByteBuffer segment = records.segment(position);
+        int base = records.offset(position);
+        long offset = segment.getLong(base + PATH_OFFSET);
+        byte[] bytes = new byte[segment.getInt(base + PATH_LENGTH)];
+        strings.segment(offset).get(strings.offset(offset), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long getFileSize(int row) {
+        return getLong(row, FILE_SIZE);
+    }
+
+    public long getLastModified(int row) {
+        return getLong(row, LAST_MODIFIED);
+    }
+
+    public double getResolution(int row) {
+        long position = (long) row * RECORD_SIZE;
+        return records.segment(position).getDouble(records.offset(position) + RESOLUTION);
+    }
+
+    public int getWidth(int row) {
+        return getInt(row, WIDTH);
+    }
+
+    public int getHeight(int row) {
+        return getInt(row, HEIGHT);
+    }
+
+    public int getColorDepth(int row) {
+        return getInt(row, COLOR_DEPTH);
+    }
+
+    public int getFormatCode(int row) {
+        return getInt(row, FORMAT_CODE);
+    }
+
+    public int getCompressionCode(int row) {
+        return getInt(row, COMPRESSION_CODE);
+    }
+
+    public int getAdditionalInfoCode(int row) {
+        return getInt(row, ADDITIONAL_INFO_CODE);
+    }
+
+    // Номер группы дубликатов, 0 - не дубликат
+    public int getDuplicateGroup(int row) {
+        return getInt(row, DUPLICATE_GROUP);
+    }
+
+    public void setDuplicateGroup(int row, int group) {
+        long position = (long) row * RECORD_SIZE;
+        records.segment(position).putInt(records.offset(position) + DUPLICATE_GROUP, group);
+    }
+
+    // Освобождает отображения и удаляет файлы; после закрытия хранилище не используется
+    @Override
+    public void close() throws IOException {
+        rowCount = 0;
+        try {
+            records.close();
+        } finally {
+            strings.close();
+        }
+    }
+
+    private long getLong(int row, int field) {
+        long position = (long) row * RECORD_SIZE;
+        return records.segment(position).getLong(records.offset(position) + field);
+    }
+
+    private int getInt(int row, int field) {
+        long position = (long) row * RECORD_SIZE;
+        return records.segment(position).getInt(records.offset(position) + field);
+    }
+
+    // Строка не пересекает границу сегмента: при нехватке места переносится в следующий
+    private long appendString(byte[] bytes) throws IOException {
+        long position = stringsSize;
+        if (strings.offset(position) + (long) bytes.length > MappedFile.SEGMENT_SIZE) {
+            position = (position / MappedFile.SEGMENT_SIZE + 1) * MappedFile.SEGMENT_SIZE;
+        }
+        strings.ensureMapped(position);
+        strings.segment(position).put(strings.offset(position), bytes);
+        stringsSize = position + bytes.length;
+        return position;
+    }
+
+    // Файл, отображаемый в память сегментами; сегменты добавляются по мере роста
+    private static class MappedFile implements Closeable {
+        static final int SEGMENT_SIZE = 64 * 1024 * 1024; // Кратно RECORD_SIZE
+
+        // Unsafe.invokeCleaner освобождает отображение сразу; без него файл в Windows остаётся
+        // занятым до сборки мусора и не удаляется. null - недоступен, отображение освободит сборщик
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                unsafe = null;
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        private final File path;
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+        MappedFile(File path) throws IOException {
+            this.path = path;
+            this.file = new RandomAccessFile(path, "rw");
+            this.channel = file.getChannel();
+        }
+
+        void ensureMapped(long position) throws IOException {
+            int index = (int) (position / SEGMENT_SIZE);
+            while (segments.size() <= index) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) segments.size() * SEGMENT_SIZE, SEGMENT_SIZE);
+                segment.order(ByteOrder.nativeOrder());
+                segments.add(segment);
+            }
+        }
+
+        ByteBuffer segment(long position) {
+            return segments.get((int) (position / SEGMENT_SIZE));
+        }
+
+        int offset(long position) {
+            return (int) (position % SEGMENT_SIZE);
+        }
+
+        // Сегменты сначала убираются из списка: обращение после закрытия - исключение,
+        // а не чтение освобождённой памяти
+        @Override
+        public void close() throws IOException {
+            List<MappedByteBuffer> mapped = new ArrayList<>(segments);
+            segments.clear();
+            for (MappedByteBuffer segment : mapped) {
+                unmap(segment);
+            }
+            file.close();
+            if (path.exists() && !path.delete()) {
+                System.err.println("Не удалось удалить файл результатов " + path);
+            }
+        }
+
+        private static void unmap(MappedByteBuffer segment) {
+            if (INVOKE_CLEANER == null) {
+                return;
+            }
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, segment);
+            } catch (ReflectiveOperationException e) {
+                // Отображение освободит сборщик мусора
+            }
+        }
+    }
+}
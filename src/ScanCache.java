@@ -0,0 +1,314 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Дисковый кэш результатов: ключ - абсолютный путь, запись действительна,
+// пока совпадают размер и время изменения файла. Файл кэша только дописывается;
+// устаревшие записи вычищаются при открытии, если их стало больше половины.
+// В памяти - только RecordIndex (хэш пути -> положение записи), сама запись читается
+// из файла при попадании. Файл занят одним процессом: второй экземпляр работает без кэша
+public class ScanCache implements Closeable {
+    private static final int MAGIC = 0x49494331; // "IIC1"
+    // 2 - формат определяется по содержимому файла (JPEG вместо JPG и т.п.)
+    // 3 - перед записью её длина, чтобы читать запись по смещению из индекса
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 8;
+
+    private final File file;
+    private final FileChannel lockChannel;
+    private final FileLock fileLock;
+    private RecordFile records;
+    private RecordIndex index = new RecordIndex();
+    // Индекс; запись в файл - под блокировкой RecordFile
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ScanCache(File file, FileChannel lockChannel, FileLock fileLock) {
+        this.file = file;
+        this.lockChannel = lockChannel;
+        this.fileLock = fileLock;
+    }
+
+    // Кэш по умолчанию: ~/.imageinfo/scan-cache.bin, путь меняется параметром -Dimageinfo.cacheFile,
+    // отключается -Dimageinfo.cache=off. Возвращает null, если кэш отключён или недоступен
+    public static ScanCache openDefault() {
+        if ("off".equalsIgnoreCase(System.getProperty("imageinfo.cache"))) {
+            return null;
+        }
+        String path = System.getProperty("imageinfo.cacheFile",
+                System.getProperty("user.home") + File.separator + ".imageinfo" + File.separator + "scan-cache.bin");
+        return openOrNull(new File(path));
+    }
+
+    // null, если кэш недоступен (в том числе занят другим процессом)
+    public static ScanCache openOrNull(File file) {
+        try {
+            return open(file);
+        } catch (IOException e) {
+            System.err.println("Кэш сканирования недоступен (" + file + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static ScanCache open(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Не удалось создать каталог " + parent);
+        }
+
+        // Блокировка - на отдельном файле: сам кэш при уплотнении заменяется новым
+        FileChannel lockChannel = FileChannel.open(new File(file.getPath() + ".lock").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        } catch (OverlappingFileLockException e) {
+            fileLock = null; // Кэш уже открыт в этом процессе
+        }
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new IOException("кэш используется другим процессом");
+        }
+
+        ScanCache cache = new ScanCache(file, lockChannel, fileLock);
+        try {
+            int records = file.isFile() ? cache.load() : -1;
+            if (records < 0 || records > cache.index.size() * 2) {
+                cache.rewrite(); // Новый, повреждённый или разросшийся файл
+            }
+            cache.records = new RecordFile(file);
+        } catch (IOException e) {
+            cache.close();
+            throw e;
+        }
+        return cache;
+    }
+
+    // Запись для пути есть (без сверки размера и времени): оценка для порядка обработки
+    public boolean contains(DiscoveredFile discovered) {
+        long hash = RecordIndex.hash(discovered.getFile().getAbsolutePath());
+        lock.readLock().lock();
+        try {
+            return index.get(hash) != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Результат из кэша, если файл не менялся; каждый вызов читает запись заново
+    public ImageInfo lookup(DiscoveredFile discovered) {
+        String path = discovered.getFile().getAbsolutePath();
+        long hash = RecordIndex.hash(path);
+        long position;
+        lock.readLock().lock();
+        try {
+            position = index.get(hash);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (position == 0) {
+            return null;
+        }
+        try {
+            byte[] data = records.read(RecordIndex.offset(position), RecordIndex.length(position));
+            ImageInfo info = readRecord(new DataInputStream(new ByteArrayInputStream(data)));
+            if (info.getFilePath().equals(path) && info.getFileSize() == discovered.getSize()
+                    && info.getLastModified() == discovered.getLastModified()) {
+                return info;
+            }
+        } catch (IOException e) {
+            // Кэш закрыт или запись не читается - файл разбирается заново
+        }
+        return null;
+    }
+
+    // Запись сериализуется вне блокировок
+    public void put(ImageInfo info) {
+        try {
+            byte[] payload = toBytes(info);
+            if (Integer.BYTES + payload.length > RecordFile.BUFFER_SIZE) {
+                return; // Запись с огромными строками не кэшируется
+            }
+            byte[] record = ByteBuffer.allocate(Integer.BYTES + payload.length)
+                    .putInt(payload.length).put(payload).array();
+            long offset = records.append(record);
+            long hash = RecordIndex.hash(info.getFilePath());
+            lock.writeLock().lock();
+            try {
+                index.put(hash, offset + Integer.BYTES, payload.length);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка записи кэша: " + e.getMessage());
+        }
+    }
+
+    public void flush() {
+        try {
+            records.flush();
+        } catch (IOException e) {
+            System.err.println("Ошибка записи кэша: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (records != null) {
+                records.close();
+            }
+        } finally {
+            fileLock.release();
+            lockChannel.close();
+        }
+    }
+
+    // Возвращает число прочитанных записей или -1, если файл не является кэшем или повреждён.
+    // Записи до повреждения остаются в индексе и переносятся в новый файл
+    private int load() throws IOException {
+        int records = 0;
+        long offset = HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return -1;
+            }
+            while (true) {
+                int length = in.read();
+                if (length < 0) {
+                    return records;
+                }
+                length = (length << 24) | (in.readUnsignedByte() << 16)
+                        | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+                if (length <= 0 || length > RecordIndex.MAX_LENGTH) {
+                    return -1;
+                }
+                byte[] data = new byte[length];
+                in.readFully(data);
+                ImageInfo info = readRecord(new DataInputStream(new ByteArrayInputStream(data)));
+                if (!isValid(info)) {
+                    return -1;
+                }
+                index.put(RecordIndex.hash(info.getFilePath()), offset + Integer.BYTES, length);
+                offset += Integer.BYTES + length;
+                records++;
+            }
+        } catch (EOFException e) {
+            // Оборванная последняя запись (например, после аварийного завершения):
+            // файл перезаписывается, иначе следующие записи сместятся
+            return -1;
+        } catch (IOException e) {
+            // Повреждённые данные, в том числе неверный UTF-8 (UTFDataFormatException)
+            System.err.println("Кэш сканирования повреждён, используются записи до повреждения: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Записи, перемешанные или испорченные без нарушения формата, отбрасываются
+    private static boolean isValid(ImageInfo info) {
+        return !info.getFilePath().isEmpty() && info.getFileSize() >= 0
+                && info.getWidth() >= 0 && info.getHeight() >= 0 && info.getColorDepth() >= 0;
+    }
+
+    // Переносит записи индекса в новый файл; старый файл читается по смещениям
+    private void rewrite() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        RecordIndex rewritten = new RecordIndex();
+        try (FileChannel source = file.isFile() ? FileChannel.open(file.toPath(), StandardOpenOption.READ) : null;
+             DataOutputStream tempOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            tempOut.writeInt(MAGIC);
+            tempOut.writeInt(VERSION);
+            long[] offset = {HEADER_SIZE};
+            if (source != null) {
+                index.forEach((hash, position) -> {
+                    byte[] data = read(source, position);
+                    tempOut.writeInt(data.length);
+                    tempOut.write(data);
+                    rewritten.put(hash, offset[0] + Integer.BYTES, data.length);
+                    offset[0] += Integer.BYTES + data.length;
+                });
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        index = rewritten;
+    }
+
+    private static byte[] read(FileChannel source, long position) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(RecordIndex.length(position));
+        long offset = RecordIndex.offset(position);
+        while (data.hasRemaining()) {
+            if (source.read(data, offset + data.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return data.array();
+    }
+
+    private static byte[] toBytes(ImageInfo info) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream recordOut = new DataOutputStream(bytes);
+        writeRecord(recordOut, info);
+        recordOut.flush();
+        return bytes.toByteArray();
+    }
+
+    // Формат записи общий с контрольными точками (ScanCheckpoint)
+    static void writeRecord(DataOutputStream out, ImageInfo info) throws IOException {
+        out.writeUTF(info.getFilePath());
+        out.writeLong(info.getFileSize());
+        out.writeLong(info.getLastModified());
+        writeString(out, info.getFormat());
+        out.writeInt(info.getWidth());
+        out.writeInt(info.getHeight());
+        out.writeDouble(info.getResolution());
+        out.writeInt(info.getColorDepth());
+        writeString(out, info.getCompression());
+        writeString(out, info.getAdditionalInfo());
+    }
+
+    static ImageInfo readRecord(DataInputStream in) throws IOException {
+        ImageInfo info = new ImageInfo();
+        info.setFilePath(in.readUTF());
+        info.setFileName(new File(info.getFilePath()).getName());
+        info.setFileSize(in.readLong());
+        info.setLastModified(in.readLong());
+        info.setFormat(readString(in));
+        info.setWidth(in.readInt());
+        info.setHeight(in.readInt());
+        info.setResolution(in.readDouble());
+        info.setColorDepth(in.readInt());
+        info.setCompression(readString(in));
+        info.setAdditionalInfo(readString(in));
+        return info;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,280 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Контрольная точка сканирования одной папки: журнал исходов файлов (результат, ошибка или карантин)
+// вместе с размером и временем изменения файла. Журнал только дописывается и сбрасывается на диск
+// не реже раза в FLUSH_INTERVAL_NANOS. При продолжении сканирования все каталоги читаются заново:
+// файл с теми же размером и временем изменения получает сохранённый исход без чтения, новые
+// и изменённые файлы обрабатываются, удалённые в таблицу не попадают. В памяти - только
+// RecordIndex по записям журнала. Файл удаляется после успешного завершения сканирования
+public class ScanCheckpoint implements Closeable {
+    private static final int MAGIC = 0x49494350; // "IICP"
+    // 2 - в записях ошибок и карантина размер и время изменения файла, каталоги не записываются
+    private static final int VERSION = 2;
+    private static final byte FILE_RECORD = 1;
+    private static final byte FAILED_RECORD = 3;
+    private static final byte QUARANTINED_RECORD = 4;
+    // Тип и длина перед каждой записью
+    private static final int RECORD_HEADER_SIZE = 1 + Integer.BYTES;
+    private static final long FLUSH_INTERVAL_NANOS = 2_000_000_000L;
+
+    private final File file;
+    private final String root;
+    private final String mode;
+    // Записи прерванного сканирования; после открытия не меняется
+    private final RecordIndex index = new RecordIndex();
+    private RecordFile records;
+    private volatile long lastFlush = System.nanoTime();
+
+    private ScanCheckpoint(File file, String root, String mode) {
+        this.file = file;
+        this.root = root;
+        this.mode = mode;
+    }
+
+    // Точка для папки в ~/.imageinfo/checkpoints (каталог меняется параметром -Dimageinfo.checkpointDir).
+    // mode - параметры, от которых зависит набор файлов: точка другого режима не подходит.
+    // Возвращает null, если точка недоступна
+    public static ScanCheckpoint openFor(Path root, String mode) {
+        File file = fileFor(root, mode);
+        try {
+            return open(file, root.toString(), mode);
+        } catch (IOException e) {
+            System.err.println("Контрольная точка недоступна (" + file + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Сканирование без контрольной точки начинается заново: прежняя точка папки больше не нужна
+    public static void discardFor(Path root, String mode) {
+        File file = fileFor(root, mode);
+        if (file.exists() && !file.delete()) {
+            System.err.println("Не удалось удалить контрольную точку " + file);
+        }
+    }
+
+    private static File fileFor(Path root, String mode) {
+        String directory = System.getProperty("imageinfo.checkpointDir",
+                System.getProperty("user.home") + File.separator + ".imageinfo" + File.separator + "checkpoints");
+        XxHash64 hash = new XxHash64();
+        hash.update(ByteBuffer.wrap((root.toString() + '\0' + mode).getBytes(StandardCharsets.UTF_8)));
+        return new File(directory, String.format("%016x.bin", hash.getValue()));
+    }
+
+    public static ScanCheckpoint open(File file, String root, String mode) throws IOException {
+        ScanCheckpoint checkpoint = new ScanCheckpoint(file, root, mode);
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Не удалось создать каталог " + parent);
+        }
+        byte[] header = checkpoint.header();
+        long valid = file.isFile() ? checkpoint.load(header) : 0;
+        checkpoint.records = new RecordFile(file);
+        // Оборванная последняя запись или чужой файл отбрасываются, дальше журнал дописывается
+        checkpoint.records.truncate(valid);
+        if (valid == 0) {
+            checkpoint.records.append(header);
+        }
+        return checkpoint;
+    }
+
+    // true - найдена точка прерванного сканирования этой папки
+    public boolean isResumed() {
+        return index.size() > 0;
+    }
+
+    // Число файлов в журнале прерванного сканирования
+    public int getStoredFiles() {
+        return index.size();
+    }
+
+    // Сохранённый исход файла, если файл не менялся: результат передаётся restored, ошибка (путь
+    // и сообщение) - failed, запись карантина - quarantined. false - файл нужно обработать
+    public boolean restore(DiscoveredFile discovered, Consumer<ImageInfo> restored,
+                           BiConsumer<String, String> failed, Consumer<QuarantineEntry> quarantined) {
+        if (index.size() == 0) {
+            return false;
+        }
+        String path = discovered.getFile().getAbsolutePath();
+        long position = index.get(RecordIndex.hash(path));
+        if (position == 0) {
+            return false;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    records.read(RecordIndex.offset(position), RecordIndex.length(position))));
+            byte type = in.readByte();
+            in.readInt();
+            if (type == FILE_RECORD) {
+                ImageInfo info = ScanCache.readRecord(in);
+                if (!matches(discovered, path, info.getFilePath(), info.getFileSize(), info.getLastModified())) {
+                    return false;
+                }
+                restored.accept(info);
+            } else if (type == FAILED_RECORD) {
+                String recordPath = in.readUTF();
+                if (!matches(discovered, path, recordPath, in.readLong(), in.readLong())) {
+                    return false;
+                }
+                failed.accept(recordPath, in.readUTF());
+            } else {
+                String recordPath = in.readUTF();
+                if (!matches(discovered, path, recordPath, in.readLong(), in.readLong())) {
+                    return false;
+                }
+                long time = in.readLong();
+                long elapsedNanos = in.readLong();
+                quarantined.accept(new QuarantineEntry(recordPath, time, elapsedNanos, in.readUTF()));
+            }
+            return true;
+        } catch (IOException e) {
+            return false; // Запись не читается - файл обрабатывается заново
+        }
+    }
+
+    private static boolean matches(DiscoveredFile discovered, String path, String recordPath, long size,
+                                   long lastModified) {
+        return path.equals(recordPath) && discovered.getSize() == size && discovered.getLastModified() == lastModified;
+    }
+
+    public void fileFinished(ImageInfo info) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(bytes);
+            ScanCache.writeRecord(recordOut, info);
+            append(FILE_RECORD, bytes);
+        } catch (IOException e) {
+            System.err.println("Ошибка записи контрольной точки: " + e.getMessage());
+        }
+    }
+
+    // Файл не разобран из-за ошибки: при продолжении он не читается снова, пока не изменится
+    public void fileFailed(DiscoveredFile discovered, String message) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(bytes);
+            recordOut.writeUTF(discovered.getFile().getAbsolutePath());
+            recordOut.writeLong(discovered.getSize());
+            recordOut.writeLong(discovered.getLastModified());
+            recordOut.writeUTF(message);
+            append(FAILED_RECORD, bytes);
+        } catch (IOException e) {
+            System.err.println("Ошибка записи контрольной точки: " + e.getMessage());
+        }
+    }
+
+    public void fileQuarantined(DiscoveredFile discovered, QuarantineEntry entry) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(bytes);
+            recordOut.writeUTF(entry.getFilePath());
+            recordOut.writeLong(discovered.getSize());
+            recordOut.writeLong(discovered.getLastModified());
+            recordOut.writeLong(entry.getTime());
+            recordOut.writeLong(entry.getElapsedNanos());
+            recordOut.writeUTF(entry.getReason());
+            append(QUARANTINED_RECORD, bytes);
+        } catch (IOException e) {
+            System.err.println("Ошибка записи контрольной точки: " + e.getMessage());
+        }
+    }
+
+    public void flush() {
+        try {
+            records.flush();
+            lastFlush = System.nanoTime();
+        } catch (IOException e) {
+            System.err.println("Ошибка записи контрольной точки: " + e.getMessage());
+        }
+    }
+
+    // Сохраняет журнал: следующее сканирование этой папки продолжит с места остановки
+    @Override
+    public void close() {
+        try {
+            records.close();
+        } catch (IOException e) {
+            System.err.println("Ошибка записи контрольной точки: " + e.getMessage());
+        }
+    }
+
+    // Сканирование завершено - продолжать нечего
+    public void delete() {
+        close();
+        if (file.exists() && !file.delete()) {
+            System.err.println("Не удалось удалить контрольную точку " + file);
+        }
+    }
+
+    // Запись собирается вне блокировок; RecordFile только копирует её в буфер
+    private void append(byte type, ByteArrayOutputStream payload) throws IOException {
+        if (RECORD_HEADER_SIZE + payload.size() > RecordFile.BUFFER_SIZE) {
+            return; // Запись с огромными строками не сохраняется: файл будет прочитан заново
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.size());
+        record.put(type).putInt(payload.size()).put(payload.toByteArray());
+        records.append(record.array());
+        long now = System.nanoTime();
+        if (now - lastFlush >= FLUSH_INTERVAL_NANOS) {
+            lastFlush = now;
+            records.flush();
+        }
+    }
+
+    // Индекс записей прерванного сканирования. Возвращает длину целой части журнала
+    // или 0, если файл не является точкой этой папки и режима
+    private long load(byte[] header) {
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] fileHeader = new byte[header.length];
+            in.readFully(fileHeader);
+            if (!Arrays.equals(header, fileHeader)) {
+                return 0;
+            }
+            offset = header.length;
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    return offset;
+                }
+                int length = in.readInt();
+                if ((type != FILE_RECORD && type != FAILED_RECORD && type != QUARANTINED_RECORD)
+                        || length <= 0 || RECORD_HEADER_SIZE + length > RecordFile.BUFFER_SIZE) {
+                    return offset; // Повреждённый хвост
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                String path = new DataInputStream(new ByteArrayInputStream(payload)).readUTF();
+                index.put(RecordIndex.hash(path), offset, RECORD_HEADER_SIZE + length);
+                offset += RECORD_HEADER_SIZE + length;
+            }
+        } catch (IOException e) {
+            // Оборванная последняя запись после аварийного завершения или повреждённые данные:
+            // используется всё, что до них
+            return offset;
+        }
+    }
+
+    private byte[] header() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(bytes);
+        headerOut.writeInt(MAGIC);
+        headerOut.writeInt(VERSION);
+        headerOut.writeUTF(root);
+        headerOut.writeUTF(mode);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,23 @@
+import java.util.Locale;
+
+public enum ScanExecutionMode {
+    // Фиксированный пул платформенных потоков по числу ядер
+    PLATFORM,
+    // Виртуальный поток на каждый файл; число одновременно обрабатываемых файлов ограничено семафором.
+    // Для сетевых дисков (NFS/SMB), где потоки почти всё время ждут ввода-вывода
+    VIRTUAL;
+
+    // Режим задаётся параметром -Dimageinfo.executor=platform|virtual
+    public static ScanExecutionMode fromSystemProperty() {
+        String value = System.getProperty("imageinfo.executor");
+        if (value == null || value.isBlank()) {
+            return PLATFORM;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Неизвестный режим обработки: " + value + ", используется PLATFORM");
+            return PLATFORM;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+import java.io.File;
+import java.util.List;
+
+// Получатель событий сканирования: графический интерфейс или командная строка.
+// fileProcessed и fileFailed вызываются из потоков-обработчиков
+public interface ScanListener {
+    void scanStarted(File folder);
+
+    void fileProcessed(ImageInfo info);
+
+    void fileFailed(File file, Exception error);
+
+    // Файл снят с обработки: превысил срок, лимит чтения или память. Вызывается потоком-обработчиком
+    // или потоком сторожа сроков
+    default void fileQuarantined(QuarantineEntry entry) {
+    }
+
+    // Сканирование дошло до конца (не вызывается при остановке пользователем)
+    void scanFinished(ScanSummary summary);
+
+    default void scanStopped() {
+    }
+
+    // Найдена контрольная точка прерванного сканирования с исходами storedFiles файлов. Исходы
+    // неизменённых файлов передаются в fileProcessed (fileFailed, fileQuarantined) по ходу обхода,
+    // остальные файлы читаются
+    default void scanRestored(int storedFiles) {
+    }
+
+    default void scanPaused() {
+    }
+
+    default void scanContinued() {
+    }
+
+    // Режим наблюдения: после сканирования папка отслеживается до следующего сканирования или остановки
+    default void watchStarted(File folder) {
+    }
+
+    default void watchStopped() {
+    }
+
+    // Вызывается потоком наблюдения пачкой после затихания событий: updated - новые и изменённые
+    // файлы, removedFiles и removedDirectories - пути удалённых файлов и каталогов
+    default void filesChanged(List<ImageInfo> updated, List<String> removedFiles, List<String> removedDirectories) {
+    }
+}
@@ -0,0 +1,76 @@
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+// Порядок обработки найденных файлов: сначала файлы в фокусе пользователя (выбранный каталог,
+// формат из фильтра таблицы), затем - кратчайшее ожидаемое время обработки первым
+public class ScanScheduler {
+    // Оценки до первых замеров: разбор заголовка и запасной путь через ImageIO
+    private static final long DEFAULT_HEADER_COST_NANOS = 200_000;
+    private static final long DEFAULT_UNKNOWN_COST_NANOS = 2_000_000;
+    // Среднее по формату используется после стольких замеров
+    private static final int MIN_FORMAT_SAMPLES = 16;
+    // Поправка на размер - 1 мкс на МБ: в пределах формата меньшие файлы идут раньше
+    private static final long SIZE_BYTES_PER_NANO = 1000;
+
+    private final ScanStatistics statistics;
+    private final ScanCache cache;
+    // Формат по расширению или null, если расширение неизвестно
+    private final Function<File, String> formatGuess;
+    private volatile List<Path> focusDirectories = List.of();
+    private volatile String focusFormat;
+
+    public ScanScheduler(ScanStatistics statistics, ScanCache cache, Function<File, String> formatGuess) {
+        this.statistics = statistics;
+        this.cache = cache;
+        this.formatGuess = formatGuess;
+    }
+
+    // directories - каталоги, файлы которых (включая подкаталоги) обрабатываются первыми;
+    // format - формат из фильтра или null
+    public void setFocus(Collection<Path> directories, String format) {
+        this.focusDirectories = List.copyOf(directories);
+        this.focusFormat = format;
+    }
+
+    public boolean inFocus(DiscoveredFile file) {
+        List<Path> directories = focusDirectories;
+        String format = focusFormat;
+        if (directories.isEmpty() && format == null) {
+            return false;
+        }
+        if (format != null && format.equals(formatGuess.apply(file.getFile()))) {
+            return true;
+        }
+        Path path = file.getFile().toPath();
+        for (Path directory : directories) {
+            if (path.startsWith(directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Ожидаемое время обработки, нс: файл из кэша не открывается; иначе среднее время
+    // разбора его формата в этом сканировании, файлы с неизвестным расширением - дольше всех
+    public long expectedCost(DiscoveredFile file) {
+        if (cache != null && cache.contains(file)) {
+            return 0;
+        }
+        String format = formatGuess.apply(file.getFile());
+        return formatCost(format) + file.getSize() / SIZE_BYTES_PER_NANO;
+    }
+
+    private long formatCost(String format) {
+        if (format == null) {
+            return DEFAULT_UNKNOWN_COST_NANOS;
+        }
+        LatencyHistogram parseTime = statistics.getParseTime(format);
+        if (parseTime == null || parseTime.getCount() < MIN_FORMAT_SAMPLES) {
+            return DEFAULT_HEADER_COST_NANOS;
+        }
+        return (long) parseTime.getMean();
+    }
+}
@@ -0,0 +1,163 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Статистика сканирования без общих атомарных счётчиков: обработчики пишут в LongAdder,
+// который распределяет обновления по ячейкам потоков, а интерфейс и командная строка
+// снимают значения с фиксированной частотой. Значения - на момент чтения, без общего среза
+public class ScanStatistics {
+    private final LongAdder filesProcessed = new LongAdder();
+    private final LongAdder bytesProcessed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder filesSkipped = new LongAdder();
+    private final LongAdder filesRestored = new LongAdder();
+    private final LongAdder filesQuarantined = new LongAdder();
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+    private final Map<String, FormatStatistics> formats = new ConcurrentHashMap<>();
+    // Индекс - этап, ключ - формат
+    private final List<Map<String, StageLatency>> stages = new ArrayList<>();
+    private final long startTime = System.nanoTime();
+
+    public ScanStatistics() {
+        for (int i = 0; i < PipelineStage.values().length; i++) {
+            stages.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    // Файл обработан: из кэша (parseNanos не учитывается) или разбором заголовка
+    public void recordFile(String format, long bytes, long parseNanos, boolean cached) {
+        FormatStatistics statistics = formatStatistics(format);
+        statistics.files.increment();
+        filesProcessed.increment();
+        bytesProcessed.add(bytes);
+        if (cached) {
+            cacheHits.increment();
+        } else {
+            parseTime.record(parseNanos);
+            statistics.parseTime.record(parseNanos);
+        }
+    }
+
+    // Результат восстановлен из контрольной точки прерванного сканирования
+    public void recordRestored(String format, long bytes) {
+        formatStatistics(format).files.increment();
+        filesProcessed.increment();
+        bytesProcessed.add(bytes);
+        filesRestored.increment();
+    }
+
+    // Ошибка или карантин файла восстановлены из контрольной точки
+    public void recordRestoredFailure(boolean quarantined) {
+        if (quarantined) {
+            recordQuarantined();
+        } else {
+            recordError();
+        }
+        filesRestored.increment();
+    }
+
+    // Задержка этапа; format - формат файла или "*" для этапов, не связанных с одним файлом
+    public void recordStage(PipelineStage stage, String format, long nanos, String path) {
+        Map<String, StageLatency> byFormat = stages.get(stage.ordinal());
+        String key = formatKey(format);
+        StageLatency latency = byFormat.get(key);
+        if (latency == null) {
+            latency = byFormat.computeIfAbsent(key, k -> new StageLatency(stage, k));
+        }
+        latency.record(nanos, path);
+    }
+
+    // Все этапы в порядке конвейера, внутри этапа - по формату
+    public List<StageLatency> getStageLatencies() {
+        List<StageLatency> result = new ArrayList<>();
+        for (Map<String, StageLatency> byFormat : stages) {
+            result.addAll(new TreeMap<>(byFormat).values());
+        }
+        return result;
+    }
+
+    public void recordError() {
+        errors.increment();
+        filesProcessed.increment();
+    }
+
+    // Файл снят с обработки (срок, лимит чтения, память); учитывается и как ошибка
+    public void recordQuarantined() {
+        filesQuarantined.increment();
+        recordError();
+    }
+
+    // Файл без известного расширения оказался не изображением
+    public void recordSkipped() {
+        filesSkipped.increment();
+    }
+
+    // Обработано файлов, включая ошибочные
+    public long getFilesProcessed() {
+        return filesProcessed.sum();
+    }
+
+    // Суммарный размер успешно обработанных файлов
+    public long getBytesProcessed() {
+        return bytesProcessed.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getFilesSkipped() {
+        return filesSkipped.sum();
+    }
+
+    public long getFilesRestored() {
+        return filesRestored.sum();
+    }
+
+    public long getFilesQuarantined() {
+        return filesQuarantined.sum();
+    }
+
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startTime) / 1e9;
+    }
+
+    public LatencyHistogram getParseTime() {
+        return parseTime;
+    }
+
+    public LatencyHistogram getParseTime(String format) {
+        FormatStatistics statistics = formats.get(formatKey(format));
+        return statistics != null ? statistics.parseTime : null;
+    }
+
+    // Число файлов по форматам в алфавитном порядке
+    public Map<String, Long> getFormatCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        formats.forEach((format, statistics) -> counts.put(format, statistics.files.sum()));
+        return counts;
+    }
+
+    private FormatStatistics formatStatistics(String format) {
+        String key = formatKey(format);
+        FormatStatistics statistics = formats.get(key); // Без блокировки для уже известных форматов
+        return statistics != null ? statistics : formats.computeIfAbsent(key, k -> new FormatStatistics());
+    }
+
+    private static String formatKey(String format) {
+        return format != null ? format : "?";
+    }
+
+    private static class FormatStatistics {
+        final LongAdder files = new LongAdder();
+        final LatencyHistogram parseTime = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,46 @@
+import java.util.List;
+
+// Итоги одного сканирования
+public class ScanSummary {
+    private final int totalFiles;
+    private final ScanStatistics statistics;
+    private final long elapsedNanos;
+    private final List<DuplicateGroup> duplicateGroups;
+
+    public ScanSummary(int totalFiles, ScanStatistics statistics, long elapsedNanos,
+                       List<DuplicateGroup> duplicateGroups) {
+        this.totalFiles = totalFiles;
+        this.statistics = statistics;
+        this.elapsedNanos = elapsedNanos;
+        this.duplicateGroups = duplicateGroups;
+    }
+
+    public int getTotalFiles() { return totalFiles; }
+
+    public int getProcessedFiles() { return (int) statistics.getFilesProcessed(); }
+
+    public int getFailedFiles() { return (int) statistics.getErrors(); }
+
+    public int getCachedFiles() { return (int) statistics.getCacheHits(); }
+
+    // Взято из контрольной точки прерванного сканирования
+    public int getRestoredFiles() { return (int) statistics.getFilesRestored(); }
+
+    // Входят и в число ошибок
+    public int getQuarantinedFiles() { return (int) statistics.getFilesQuarantined(); }
+
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public ScanStatistics getStatistics() { return statistics; }
+
+    // Пусто, если поиск дубликатов не включён
+    public List<DuplicateGroup> getDuplicateGroups() { return duplicateGroups; }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    public double getFilesPerSecond() {
+        return elapsedNanos > 0 ? getProcessedFiles() / getElapsedSeconds() : 0;
+    }
+}
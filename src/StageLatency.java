@@ -0,0 +1,36 @@
+// Задержки одного этапа для одного формата и самый медленный файл этапа
+public class StageLatency {
+    private final PipelineStage stage;
+    private final String format;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private volatile long slowestNanos;
+    private volatile String slowestFile;
+
+    public StageLatency(PipelineStage stage, String format) {
+        this.stage = stage;
+        this.format = format;
+    }
+
+    public void record(long nanos, String path) {
+        histogram.record(nanos);
+        // Блокировка только при новом максимуме, что случается редко
+        if (nanos > slowestNanos) {
+            synchronized (this) {
+                if (nanos > slowestNanos) {
+                    slowestNanos = nanos;
+                    slowestFile = path;
+                }
+            }
+        }
+    }
+
+    public PipelineStage getStage() { return stage; }
+
+    public String getFormat() { return format; }
+
+    public LatencyHistogram getHistogram() { return histogram; }
+
+    public synchronized long getSlowestNanos() { return slowestNanos; }
+
+    public synchronized String getSlowestFile() { return slowestFile; }
+}
@@ -0,0 +1,13 @@
+// Время этапов обработки одного файла; заполняется по ходу разбора и затем
+// переносится в статистику с уже известным форматом файла
+public class StageTimings {
+    private final long[] nanos = new long[PipelineStage.values().length];
+
+    public void add(PipelineStage stage, long elapsed) {
+        nanos[stage.ordinal()] += elapsed;
+    }
+
+    public long get(PipelineStage stage) {
+        return nanos[stage.ordinal()];
+    }
+}
@@ -0,0 +1,66 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Чтение через java.io с выделением массива на каждый запрос - режим для сравнения
+public class StreamHeaderSource implements HeaderSource {
+    private final RandomAccessFile file;
+    private final long size;
+    private final byte[] prefixBytes;
+    private final ByteBuffer prefix;
+
+    public StreamHeaderSource(File file, long size) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.size = size;
+        try {
+            prefixBytes = new byte[(int) Math.min(HeaderParserEngine.PREFIX_SIZE, size)];
+            int bytesRead = readAt(0, prefixBytes);
+            prefix = ByteBuffer.wrap(prefixBytes, 0, bytesRead);
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public ByteBuffer prefix() {
+        return prefix;
+    }
+
+    @Override
+    public ByteBuffer read(long position, int length) throws IOException {
+        int available = (int) Math.max(0, Math.min(length, size - position));
+        if (position + available <= prefix.limit()) {
+            int from = (int) position;
+            return ByteBuffer.wrap(Arrays.copyOfRange(prefixBytes, from, from + available));
+        }
+        byte[] data = new byte[available];
+        int bytesRead = readAt(position, data);
+        return ByteBuffer.wrap(data, 0, bytesRead);
+    }
+
+    private int readAt(long position, byte[] data) throws IOException {
+        file.seek(position);
+        int total = 0;
+        while (total < data.length) {
+            int n = file.read(data, total, data.length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
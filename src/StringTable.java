@@ -0,0 +1,58 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Словарь повторяющихся строк (формат, сжатие, доп. информация): в строке таблицы хранится код
+public class StringTable {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private int[] ranks = new int[0];
+
+    // Возвращает код строки; null кодируется как -1
+    public int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            values.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    public String get(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    // Порядковый номер каждой строки при сортировке без учёта регистра (индекс - код).
+    // Пересчитывается только при появлении новых строк
+    public int[] ranks() {
+        if (ranks.length != values.size()) {
+            Integer[] order = new Integer[values.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> values.get(a).compareToIgnoreCase(values.get(b)));
+            int[] newRanks = new int[order.length];
+            for (int rank = 0; rank < order.length; rank++) {
+                newRanks[order[rank]] = rank;
+            }
+            ranks = newRanks;
+        }
+        return ranks;
+    }
+
+    public void clear() {
+        codes.clear();
+        values.clear();
+        ranks = new int[0];
+    }
+}
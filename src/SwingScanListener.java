@@ -0,0 +1,172 @@
+import javax.swing.*;
+import java.io.File;
+import java.util.List;
+
+// Вывод результатов сканирования в окно: таблица заполняется пачками через ResultPublisher,
+// статус и прогресс снимаются со статистики обработчика по таймеру, а не по событиям файлов
+public class SwingScanListener implements ScanListener {
+    private static final int STATUS_INTERVAL_MS = 250;
+
+    private final ImageInfoProcessor processor;
+    private final ImageInfoPanel infoPanel;
+    private final StatusPanel statusPanel;
+    private volatile ResultPublisher publisher;
+    private volatile String lastFailedFile;
+    // Итог последнего сканирования, к которому дописывается состояние наблюдения (только EDT)
+    private String finishedStatus;
+    private String finishedStatusType;
+    private final Timer statusTimer;
+
+    public SwingScanListener(ImageInfoProcessor processor, ImageInfoPanel infoPanel, StatusPanel statusPanel) {
+        this.processor = processor;
+        this.infoPanel = infoPanel;
+        this.statusPanel = statusPanel;
+        this.statusTimer = new Timer(STATUS_INTERVAL_MS, e -> sampleProgress());
+        this.statusTimer.setCoalesce(true);
+    }
+
+    @Override
+    public void scanStarted(File folder) {
+        lastFailedFile = null;
+        SwingUtilities.invokeLater(() -> {
+            infoPanel.clearTable();
+            updateStatus("Поиск изображений...", "info");
+        });
+
+        ResultPublisher currentPublisher = new ResultPublisher(infoPanel);
+        publisher = currentPublisher;
+        currentPublisher.start();
+        statusTimer.start();
+    }
+
+    @Override
+    public void scanRestored(int storedFiles) {
+        SwingUtilities.invokeLater(() -> updateStatus("Продолжение прерванного сканирования: сохранено "
+                + storedFiles + " результатов, изменённые файлы будут прочитаны заново", "info"));
+    }
+
+    @Override
+    public void scanPaused() {
+        statusTimer.stop();
+        SwingUtilities.invokeLater(() -> {
+            ScanStatistics statistics = processor.getStatistics();
+            updateStatus("Пауза: обработано " + statistics.getFilesProcessed() + " из "
+                    + processor.getTotalFiles() + " файлов", "warning");
+        });
+    }
+
+    @Override
+    public void scanContinued() {
+        statusTimer.start();
+    }
+
+    @Override
+    public void fileProcessed(ImageInfo info) {
+        publisher.publish(info);
+    }
+
+    @Override
+    public void fileFailed(File file, Exception error) {
+        lastFailedFile = file.getName();
+    }
+
+    @Override
+    public void scanFinished(ScanSummary summary) {
+        statusTimer.stop();
+        publisher.stop();
+
+        // Выполняется после выгрузки оставшихся пачек
+        SwingUtilities.invokeLater(() -> {
+            int totalFiles = summary.getTotalFiles();
+            if (totalFiles == 0) {
+                updateStatus("В выбранной папке не найдено поддерживаемых изображений", "error");
+                return;
+            }
+            int failed = summary.getFailedFiles();
+            int fromCache = summary.getCachedFiles();
+            int restored = summary.getRestoredFiles();
+            int quarantined = summary.getQuarantinedFiles();
+            int duplicateGroups = summary.getDuplicateGroups().size();
+            infoPanel.setDuplicateGroups(summary.getDuplicateGroups());
+            finishedStatus = "Обработка завершена: " + summary.getProcessedFiles() + " файлов"
+                    + (fromCache > 0 ? " (из кэша: " + fromCache + ")" : "")
+                    + (restored > 0 ? " (из контрольной точки: " + restored + ")" : "")
+                    + String.format(", %.0f файлов/с", summary.getFilesPerSecond())
+                    + (duplicateGroups > 0 ? ", групп дубликатов: " + duplicateGroups : "")
+                    + (failed > 0 ? ", ошибок: " + failed : "")
+                    + (quarantined > 0 ? " (в карантине: " + quarantined + ")" : "");
+            finishedStatusType = failed > 0 ? "warning" : "success";
+            updateStatus(finishedStatus, finishedStatusType);
+            statusPanel.updateProgress(totalFiles, totalFiles);
+        });
+    }
+
+    @Override
+    public void scanStopped() {
+        statusTimer.stop();
+        ResultPublisher currentPublisher = publisher;
+        if (currentPublisher != null) {
+            currentPublisher.stop();
+        }
+    }
+
+    @Override
+    public void watchStarted(File folder) {
+        SwingUtilities.invokeLater(() -> {
+            if (finishedStatus != null) {
+                updateStatus(finishedStatus + " | наблюдение за изменениями включено", finishedStatusType);
+            }
+        });
+    }
+
+    @Override
+    public void filesChanged(List<ImageInfo> updated, List<String> removedFiles, List<String> removedDirectories) {
+        SwingUtilities.invokeLater(() -> {
+            infoPanel.applyChanges(updated, removedFiles, removedDirectories);
+            updateStatus(String.format("Наблюдение: обновлено файлов %d, удалено %d (%tT)", updated.size(),
+                    removedFiles.size() + removedDirectories.size(), System.currentTimeMillis()), "info");
+        });
+    }
+
+    // Выполняется в EDT по таймеру
+    private void sampleProgress() {
+        ScanStatistics statistics = processor.getStatistics();
+        int processed = (int) statistics.getFilesProcessed();
+        int totalFiles = processor.getTotalFiles();
+        if (processed == 0) {
+            return;
+        }
+        statusPanel.updateProgress(processed, totalFiles);
+
+        DuplicateDetector detector = processor.getDuplicateDetector();
+        if (detector != null && detector.getCandidateCount() > 0) {
+            updateStatus("Поиск дубликатов: проверено " + detector.getHashedCount() + " из "
+                    + detector.getCandidateCount() + " файлов с совпадающим размером", "info");
+            return;
+        }
+
+        String concurrency = formatConcurrency();
+        String failed = lastFailedFile;
+        if (failed != null) {
+            updateStatus("Обработано " + processed + " из " + totalFiles + " файлов, ошибок: "
+                    + statistics.getErrors() + " (последняя: " + failed + ")" + concurrency, "error");
+        } else {
+            updateStatus("Обработано " + processed + " из " + totalFiles + " файлов" + concurrency, "info");
+        }
+    }
+
+    // Уровень параллелизма, выбранный контроллером, и скорость за последний замер
+    private String formatConcurrency() {
+        int level = processor.getConcurrencyLevel();
+        if (level == 0) {
+            return "";
+        }
+        double throughput = processor.getThroughput();
+        return " | потоков: " + level
+                + (throughput > 0 ? ", " + String.format("%.0f", throughput) + " файлов/с" : "");
+    }
+
+    private void updateStatus(String message, String type) {
+        statusPanel.updateStatus(message, type);
+    }
+}
@@ -0,0 +1,49 @@
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Эскизы в памяти в порядке последнего обращения (LRU); ограничен объём пикселей, а не число
+// записей. При переполнении вытесняются давно не показанные
+public class ThumbnailCache {
+    // Заголовок объекта изображения и записи карты
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private final long maxBytes;
+    private final LinkedHashMap<ThumbnailKey, BufferedImage> images = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    public ThumbnailCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Обращение продлевает жизнь эскиза
+    public synchronized BufferedImage get(ThumbnailKey key) {
+        return images.get(key);
+    }
+
+    public synchronized void put(ThumbnailKey key, BufferedImage image) {
+        BufferedImage previous = images.put(key, image);
+        if (previous != null) {
+            bytes -= weight(previous);
+        }
+        bytes += weight(image);
+        Iterator<Map.Entry<ThumbnailKey, BufferedImage>> eldest = images.entrySet().iterator();
+        while (bytes > maxBytes && images.size() > 1) {
+            bytes -= weight(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return images.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private static long weight(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4 + ENTRY_OVERHEAD;
+    }
+}
@@ -0,0 +1,38 @@
+import java.util.Objects;
+
+// Эскиз относится к версии файла: после изменения файла (размер, время) строится новый
+public class ThumbnailKey {
+    private final String filePath;
+    private final long fileSize;
+    private final long lastModified;
+
+    public ThumbnailKey(String filePath, long fileSize, long lastModified) {
+        this.filePath = filePath;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+    }
+
+    public String getFilePath() { return filePath; }
+
+    public long getFileSize() { return fileSize; }
+
+    public long getLastModified() { return lastModified; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ThumbnailKey)) {
+            return false;
+        }
+        ThumbnailKey other = (ThumbnailKey) o;
+        return fileSize == other.fileSize && lastModified == other.lastModified
+                && filePath.equals(other.filePath);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filePath, fileSize, lastModified);
+    }
+}
@@ -0,0 +1,70 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Ячейка столбца "Эскиз": только поиск в памяти ThumbnailService, без чтения файлов в EDT.
+// Пока эскиз строится, показывается многоточие
+public class ThumbnailRenderer extends DefaultTableCellRenderer {
+    private final ThumbnailService thumbnails;
+    private final ImageInfoTableModel model;
+    private final ThumbnailIcon icon = new ThumbnailIcon();
+
+    public ThumbnailRenderer(ThumbnailService thumbnails, ImageInfoTableModel model) {
+        this.thumbnails = thumbnails;
+        this.model = model;
+        setHorizontalAlignment(SwingConstants.CENTER);
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value,
+                                                   boolean isSelected, boolean hasFocus,
+                                                   int row, int column) {
+        super.getTableCellRendererComponent(table, null, isSelected, hasFocus, row, column);
+        int modelRow = table.convertRowIndexToModel(row);
+        BufferedImage image = thumbnails.get(new ThumbnailKey(model.getFilePath(modelRow),
+                model.getFileSize(modelRow), model.getLastModified(modelRow)));
+        if (image == null) {
+            setIcon(null);
+            setText("…");
+        } else if (image == ThumbnailService.UNAVAILABLE) {
+            setIcon(null);
+            setText("—");
+        } else {
+            icon.image = image;
+            setIcon(icon);
+            setText(null);
+        }
+
+        // Те же цвета строк, что и у остальных столбцов
+        if (isSelected) {
+            setBackground(new Color(200, 220, 255));
+        } else {
+            setBackground(row % 2 == 0 ? Color.WHITE : new Color(245, 248, 255));
+        }
+        setForeground(Color.GRAY);
+        setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, new Color(230, 230, 240)));
+        return this;
+    }
+
+    // Рисует эскиз по центру квадрата THUMBNAIL_SIZE без копирования в ImageIcon
+    private static class ThumbnailIcon implements Icon {
+        BufferedImage image;
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            g.drawImage(image, x + (getIconWidth() - image.getWidth()) / 2,
+                    y + (getIconHeight() - image.getHeight()) / 2, null);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return ThumbnailService.THUMBNAIL_SIZE;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return ThumbnailService.THUMBNAIL_SIZE;
+        }
+    }
+}
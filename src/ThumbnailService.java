@@ -0,0 +1,239 @@
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Фоновое построение эскизов для строк, видимых в таблице. Полноразмерное изображение
+// не декодируется: у JPEG берётся встроенный эскиз EXIF, остальные читаются ImageIO
+// с прореживанием (ImageReadParam.setSourceSubsampling) - в память попадает только
+// каждый N-й пиксель. Готовые эскизы лежат в ThumbnailCache и, если включено, на диске
+public class ThumbnailService {
+    // Эскиз вписывается в квадрат этого размера
+    public static final int THUMBNAIL_SIZE = 64;
+    // Эскиз не построить: формат не читается ImageIO или файл повреждён. Повторно не пробуется
+    public static final BufferedImage UNAVAILABLE = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+    private static final int WORKERS = 2;
+    // Запас для сглаженного уменьшения: прореженное изображение не меньше 2x эскиза
+    private static final int SUBSAMPLING_MARGIN = 2;
+    private static final long DECODE_TIMEOUT_NANOS = 5_000_000_000L;
+
+    private final ThumbnailCache memory;
+    // null - дисковый кэш выключен
+    private final File diskDirectory;
+    private final Runnable onReady;
+    private final JpegHeaderParser jpeg = new JpegHeaderParser();
+    private final ImageReaderPool readerPool = new ImageReaderPool();
+    private final Object lock = new Object();
+    // Очередь заменяется при каждой прокрутке: строки, ушедшие из окна, не декодируются
+    private final ArrayDeque<ThumbnailKey> pending = new ArrayDeque<>();
+    private final Set<ThumbnailKey> inProgress = new HashSet<>();
+
+    // onReady вызывается потоком построения после каждого готового эскиза
+    public ThumbnailService(Runnable onReady) {
+        this.onReady = onReady;
+        this.memory = new ThumbnailCache(Long.getLong("imageinfo.thumbnailMemoryMb", 32) << 20);
+        this.diskDirectory = "on".equalsIgnoreCase(System.getProperty("imageinfo.thumbnailDiskCache", "off"))
+                ? new File(System.getProperty("imageinfo.thumbnailDir",
+                        System.getProperty("user.home") + File.separator + ".imageinfo" + File.separator + "thumbnails"))
+                : null;
+
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread thread = new Thread(r, "thumbnail-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY); // Не мешает сканированию и EDT
+            return thread;
+        });
+        for (int i = 0; i < WORKERS; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    // Готовый эскиз, UNAVAILABLE или null, если он ещё не построен. Вызывается при отрисовке
+    public BufferedImage get(ThumbnailKey key) {
+        return memory.get(key);
+    }
+
+    // Вызывается в EDT при прокрутке и изменении таблицы: строятся эскизы только этих строк,
+    // сверху вниз; запросы для прежнего положения окна отбрасываются
+    public void request(List<ThumbnailKey> visible) {
+        synchronized (lock) {
+            pending.clear();
+            for (ThumbnailKey key : visible) {
+                if (memory.get(key) == null && !inProgress.contains(key)) {
+                    pending.add(key);
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                ThumbnailKey key;
+                synchronized (lock) {
+                    while (pending.isEmpty()) {
+                        lock.wait();
+                    }
+                    key = pending.poll();
+                    inProgress.add(key);
+                }
+                try {
+                    memory.put(key, load(key));
+                } finally {
+                    synchronized (lock) {
+                        inProgress.remove(key);
+                    }
+                }
+                onReady.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private BufferedImage load(ThumbnailKey key) {
+        BufferedImage thumbnail = readFromDisk(key);
+        if (thumbnail != null) {
+            return thumbnail;
+        }
+        File file = new File(key.getFilePath());
+        try {
+            thumbnail = readExifThumbnail(file, key.getFileSize());
+            if (thumbnail == null) {
+                thumbnail = decodeSubsampled(file);
+            }
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            return UNAVAILABLE;
+        }
+        if (thumbnail == null) {
+            return UNAVAILABLE;
+        }
+        writeToDisk(key, thumbnail);
+        return thumbnail;
+    }
+
+    // Встроенный эскиз JPEG; null, если его нет или он меньше нужного размера
+    private BufferedImage readExifThumbnail(File file, long size) throws IOException {
+        byte[] data;
+        try (HeaderSource source = new ChannelHeaderSource(file, size, false)) {
+            if (!jpeg.matches(source.prefix())) {
+                return null;
+            }
+            data = jpeg.readExifThumbnail(source);
+        }
+        if (data == null) {
+            return null;
+        }
+        try (ImageInputStream iis = new MemoryCacheImageInputStream(new ByteArrayInputStream(data))) {
+            ImageReader reader = readerPool.acquire(iis);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                BufferedImage image = reader.read(0);
+                return Math.max(image.getWidth(), image.getHeight()) >= THUMBNAIL_SIZE ? scale(image) : null;
+            } finally {
+                readerPool.release(reader);
+            }
+        }
+    }
+
+    // Декодирование с шагом прореживания по длинной стороне; null, если ImageIO не знает формат
+    private BufferedImage decodeSubsampled(File file) throws IOException {
+        FileBudget budget = new FileBudget(0, DECODE_TIMEOUT_NANOS);
+        try (ImageInputStream iis = new BudgetedImageInputStream(file, budget)) {
+            ImageReader reader = readerPool.acquire(iis);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longSide / (THUMBNAIL_SIZE * SUBSAMPLING_MARGIN));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return scale(reader.read(0, param));
+            } finally {
+                readerPool.release(reader);
+            }
+        }
+    }
+
+    // Вписывает изображение в квадрат THUMBNAIL_SIZE; результат - компактный INT_RGB/ARGB
+    private static BufferedImage scale(BufferedImage image) {
+        double factor = Math.min(1.0, (double) THUMBNAIL_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        BufferedImage thumbnail = new BufferedImage(width, height, image.getColorModel().hasAlpha()
+                ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = thumbnail.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return thumbnail;
+    }
+
+    // Файл эскиза на диске назван по хэшу пути, размера и времени изменения
+    private File diskFile(ThumbnailKey key) {
+        XxHash64 hash = new XxHash64();
+        hash.update(ByteBuffer.wrap((key.getFilePath() + '\0' + key.getFileSize() + '\0' + key.getLastModified())
+                .getBytes(StandardCharsets.UTF_8)));
+        return new File(diskDirectory, String.format("%016x.png", hash.getValue()));
+    }
+
+    private BufferedImage readFromDisk(ThumbnailKey key) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        File file = diskFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return ImageIO.read(file);
+        } catch (IOException e) {
+            return null; // Недописанный файл - эскиз строится заново
+        }
+    }
+
+    private void writeToDisk(ThumbnailKey key, BufferedImage thumbnail) {
+        if (diskDirectory == null) {
+            return;
+        }
+        File file = diskFile(key);
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            if (!diskDirectory.isDirectory() && !diskDirectory.mkdirs()) {
+                throw new IOException("Не удалось создать каталог " + diskDirectory);
+            }
+            ImageIO.write(thumbnail, "png", temp);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Ошибка записи эскиза " + file + ": " + e.getMessage());
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.Set;
+
+// Обход каталогов IFD в TIFF/BigTIFF (и в EXIF-блоке JPEG) с произвольным доступом.
+// При чтении каталога запоминаются только тег, тип, количество и позиция значения;
+// сами значения читаются из файла лишь при обращении к тегу
+public class TiffDirectoryReader {
+    public static final int IMAGE_WIDTH = 256;
+    public static final int IMAGE_LENGTH = 257;
+    public static final int BITS_PER_SAMPLE = 258;
+    public static final int COMPRESSION = 259;
+    public static final int SAMPLES_PER_PIXEL = 277;
+    public static final int X_RESOLUTION = 282;
+    public static final int Y_RESOLUTION = 283;
+    public static final int RESOLUTION_UNIT = 296;
+    // Встроенный эскиз JPEG в IFD1 блока EXIF
+    public static final int JPEG_INTERCHANGE_FORMAT = 513;
+    public static final int JPEG_INTERCHANGE_FORMAT_LENGTH = 514;
+
+    private static final int TYPE_RATIONAL = 5;
+    private static final int TYPE_SRATIONAL = 10;
+    // Защита от зацикленных цепочек и мусорных счётчиков
+    private static final int MAX_ENTRIES = 4096;
+
+    private final HeaderSource source;
+    private final long base;
+    private final ByteOrder order;
+    private final boolean bigTiff;
+    private final long firstDirectoryOffset;
+
+    private int entryCount;
+    private int[] tags = new int[0];
+    private int[] types;
+    private long[] counts;
+    private long[] valuePositions;
+    private long nextDirectoryOffset;
+
+    private TiffDirectoryReader(HeaderSource source, long base, ByteOrder order,
+                                boolean bigTiff, long firstDirectoryOffset) {
+        this.source = source;
+        this.base = base;
+        this.order = order;
+        this.bigTiff = bigTiff;
+        this.firstDirectoryOffset = firstDirectoryOffset;
+    }
+
+    // Разбирает заголовок TIFF, начинающийся с позиции base. Возвращает null, если это не TIFF
+    public static TiffDirectoryReader open(HeaderSource source, long base) throws IOException {
+        ByteBuffer header = source.read(base, 16);
+        if (header.limit() < 8) {
+            return null;
+        }
+
+        ByteOrder order;
+        if (header.get(0) == 'I' && header.get(1) == 'I') {
+            order = ByteOrder.LITTLE_ENDIAN;
+        } else if (header.get(0) == 'M' && header.get(1) == 'M') {
+            order = ByteOrder.BIG_ENDIAN;
+        } else {
+            return null;
+        }
+        header.order(order);
+
+        int version = header.getShort(2) & 0xFFFF;
+        if (version == 42) {
+            return new TiffDirectoryReader(source, base, order, false, header.getInt(4) & 0xFFFFFFFFL);
+        }
+        if (version == 43 && header.limit() >= 16 && (header.getShort(4) & 0xFFFF) == 8) {
+            return new TiffDirectoryReader(source, base, order, true, header.getLong(8));
+        }
+        return null;
+    }
+
+    public boolean isBigTiff() {
+        return bigTiff;
+    }
+
+    public ByteOrder getByteOrder() {
+        return order;
+    }
+
+    public long getFirstDirectoryOffset() {
+        return firstDirectoryOffset;
+    }
+
+    public long getNextDirectoryOffset() {
+        return nextDirectoryOffset;
+    }
+
+    // Читает таблицу записей каталога по смещению (относительно начала TIFF)
+    public boolean readDirectory(long offset) throws IOException {
+        entryCount = 0;
+        nextDirectoryOffset = 0;
+        if (offset <= 0 || base + offset >= source.size()) {
+            return false;
+        }
+
+        long position = base + offset;
+        int countSize = bigTiff ? 8 : 2;
+        int entrySize = bigTiff ? 20 : 12;
+
+        ByteBuffer countBytes = source.read(position, countSize).order(order);
+        if (countBytes.limit() < countSize) {
+            return false;
+        }
+        long count = bigTiff ? countBytes.getLong(0) : countBytes.getShort(0) & 0xFFFF;
+        if (count <= 0 || count > MAX_ENTRIES) {
+            return false;
+        }
+
+        int entries = (int) count;
+        if (tags.length < entries) {
+            tags = new int[entries];
+            types = new int[entries];
+            counts = new long[entries];
+            valuePositions = new long[entries];
+        }
+
+        // Таблица читается порциями, чтобы поместиться в буфер источника
+        long tablePosition = position + countSize;
+        int perChunk = ChannelHeaderSource.READ_BUFFER_SIZE / entrySize;
+        for (int first = 0; first < entries; first += perChunk) {
+            int chunk = Math.min(perChunk, entries - first);
+            ByteBuffer table = source.read(tablePosition + (long) first * entrySize, chunk * entrySize).order(order);
+            int available = table.limit() / entrySize;
+            for (int i = 0; i < available; i++) {
+                int entry = i * entrySize;
+                int index = first + i;
+                tags[index] = table.getShort(entry) & 0xFFFF;
+                types[index] = table.getShort(entry + 2) & 0xFFFF;
+                counts[index] = bigTiff ? table.getLong(entry + 4) : table.getInt(entry + 4) & 0xFFFFFFFFL;
+
+                long valueField = tablePosition + (long) index * entrySize + (bigTiff ? 12 : 8);
+                long valueSize = counts[index] * typeSize(types[index]);
+                if (valueSize <= (bigTiff ? 8 : 4)) {
+                    valuePositions[index] = valueField;
+                } else {
+                    long valueOffset = bigTiff ? table.getLong(entry + 12) : table.getInt(entry + 8) & 0xFFFFFFFFL;
+                    valuePositions[index] = base + valueOffset;
+                }
+                entryCount = index + 1;
+            }
+            if (available < chunk) {
+                return entryCount > 0; // Файл обрезан посреди таблицы
+            }
+        }
+
+        ByteBuffer next = source.read(tablePosition + (long) entries * entrySize, bigTiff ? 8 : 4).order(order);
+        if (next.limit() >= (bigTiff ? 8 : 4)) {
+            nextDirectoryOffset = bigTiff ? next.getLong(0) : next.getInt(0) & 0xFFFFFFFFL;
+        }
+        return true;
+    }
+
+    // Считает каталоги (страницы), начиная с первого; читается только счётчик и ссылка на следующий.
+    // Цепочка, вернувшаяся к уже пройденному каталогу (A -> B -> A), обрывается
+    public int countDirectories(int limit) throws IOException {
+        int countSize = bigTiff ? 8 : 2;
+        int entrySize = bigTiff ? 20 : 12;
+        int pointerSize = bigTiff ? 8 : 4;
+
+        int pages = 0;
+        long offset = firstDirectoryOffset;
+        Set<Long> visited = new HashSet<>();
+        while (offset > 0 && base + offset < source.size() && pages < limit && visited.add(offset)) {
+            ByteBuffer countBytes = source.read(base + offset, countSize).order(order);
+            if (countBytes.limit() < countSize) {
+                break;
+            }
+            long count = bigTiff ? countBytes.getLong(0) : countBytes.getShort(0) & 0xFFFF;
+            if (count <= 0 || count > MAX_ENTRIES) {
+                break;
+            }
+            pages++;
+
+            ByteBuffer next = source.read(base + offset + countSize + count * entrySize, pointerSize).order(order);
+            if (next.limit() < pointerSize) {
+                break;
+            }
+            offset = bigTiff ? next.getLong(0) : next.getInt(0) & 0xFFFFFFFFL;
+        }
+        return pages;
+    }
+
+    public boolean has(int tag) {
+        return indexOf(tag) >= 0;
+    }
+
+    // Первое значение целочисленного тега
+    public long getLong(int tag, long defaultValue) throws IOException {
+        int index = indexOf(tag);
+        if (index < 0 || counts[index] == 0) {
+            return defaultValue;
+        }
+        ByteBuffer value = source.read(valuePositions[index], typeSize(types[index])).order(order);
+        return value.limit() < typeSize(types[index]) ? defaultValue : readUnsigned(value, 0, types[index]);
+    }
+
+    // Сумма всех значений тега (например, BitsPerSample по всем каналам)
+    public long sumValues(int tag) throws IOException {
+        int index = indexOf(tag);
+        if (index < 0) {
+            return 0;
+        }
+        int size = typeSize(types[index]);
+        int count = (int) Math.min(counts[index], ChannelHeaderSource.READ_BUFFER_SIZE / size);
+        ByteBuffer values = source.read(valuePositions[index], count * size).order(order);
+        long sum = 0;
+        for (int i = 0; i + size <= values.limit(); i += size) {
+            sum += readUnsigned(values, i, types[index]);
+        }
+        return sum;
+    }
+
+    public double getRational(int tag) throws IOException {
+        int index = indexOf(tag);
+        if (index < 0 || counts[index] == 0) {
+            return 0;
+        }
+        if (types[index] != TYPE_RATIONAL && types[index] != TYPE_SRATIONAL) {
+            return getLong(tag, 0);
+        }
+        ByteBuffer value = source.read(valuePositions[index], 8).order(order);
+        if (value.limit() < 8) {
+            return 0;
+        }
+        long numerator = value.getInt(0) & 0xFFFFFFFFL;
+        long denominator = value.getInt(4) & 0xFFFFFFFFL;
+        return denominator == 0 ? 0 : (double) numerator / denominator;
+    }
+
+    // Горизонтальное разрешение в dpi с учётом ResolutionUnit (по умолчанию - дюймы)
+    public double getDpi() throws IOException {
+        double resolution = getRational(X_RESOLUTION);
+        if (resolution <= 0) {
+            return 0;
+        }
+        switch ((int) getLong(RESOLUTION_UNIT, 2)) {
+            case 2: return resolution;        // дюймы
+            case 3: return resolution * 2.54; // сантиметры
+            default: return 0;                // без единиц
+        }
+    }
+
+    private int indexOf(int tag) {
+        for (int i = 0; i < entryCount; i++) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long readUnsigned(ByteBuffer buffer, int offset, int type) {
+        switch (typeSize(type)) {
+            case 1: return buffer.get(offset) & 0xFF;
+            case 2: return buffer.getShort(offset) & 0xFFFF;
+            case 4: return buffer.getInt(offset) & 0xFFFFFFFFL;
+            default: return buffer.getLong(offset);
+        }
+    }
+
+    private int typeSize(int type) {
+        switch (type) {
+            case 3:  // SHORT
+            case 8:  // SSHORT
+                return 2;
+            case 4:  // LONG
+            case 9:  // SLONG
+            case 11: // FLOAT
+            case 13: // IFD
+                return 4;
+            case 5:  // RATIONAL
+            case 10: // SRATIONAL
+            case 12: // DOUBLE
+            case 16: // LONG8
+            case 17: // SLONG8
+            case 18: // IFD8
+                return 8;
+            default: // BYTE, ASCII, SBYTE, UNDEFINED
+                return 1;
+        }
+    }
+}
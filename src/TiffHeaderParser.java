@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class TiffHeaderParser implements HeaderParser {
+    // Предел для подсчёта страниц в повреждённых файлах
+    private static final int MAX_PAGES = 100000;
+
+    @Override
+    public String getFormatName() {
+        return "TIFF";
+    }
+
+    @Override
+    public boolean matches(ByteBuffer header) {
+        if (header.limit() < 4) {
+            return false;
+        }
+        boolean littleEndian = header.get(0) == 'I' && header.get(1) == 'I'
+                && (header.get(2) == 42 || header.get(2) == 43) && header.get(3) == 0;
+        boolean bigEndian = header.get(0) == 'M' && header.get(1) == 'M'
+                && header.get(2) == 0 && (header.get(3) == 42 || header.get(3) == 43);
+        return littleEndian || bigEndian;
+    }
+
+    @Override
+    public boolean needsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean parse(HeaderSource source, ImageInfo info) throws IOException {
+        TiffDirectoryReader tiff = TiffDirectoryReader.open(source, 0);
+        if (tiff == null || !tiff.readDirectory(tiff.getFirstDirectoryOffset())) {
+            return false;
+        }
+
+        int width = (int) tiff.getLong(TiffDirectoryReader.IMAGE_WIDTH, 0);
+        int height = (int) tiff.getLong(TiffDirectoryReader.IMAGE_LENGTH, 0);
+        int samplesPerPixel = (int) tiff.getLong(TiffDirectoryReader.SAMPLES_PER_PIXEL, 1);
+        int colorDepth = (int) tiff.sumValues(TiffDirectoryReader.BITS_PER_SAMPLE);
+        if (colorDepth == 0) {
+            colorDepth = samplesPerPixel; // По умолчанию BitsPerSample = 1
+        }
+        int compression = (int) tiff.getLong(TiffDirectoryReader.COMPRESSION, 1);
+        double dpi = tiff.getDpi();
+        int pages = tiff.countDirectories(MAX_PAGES);
+
+        info.setWidth(width);
+        info.setHeight(height);
+        info.setColorDepth(colorDepth);
+        info.setCompression(getCompression(compression));
+        if (dpi > 0) {
+            info.setResolution(dpi);
+        }
+        info.setAdditionalInfo("Порядок байт: "
+                + (tiff.getByteOrder() == ByteOrder.LITTLE_ENDIAN ? "Little-endian (II)" : "Big-endian (MM)")
+                + ", страниц: " + pages
+                + (tiff.isBigTiff() ? ", BigTIFF" : ""));
+        return width > 0 && height > 0;
+    }
+
+    private String getCompression(int compression) {
+        switch (compression) {
+            case 1: return "Без сжатия";
+            case 2: return "CCITT RLE";
+            case 3: return "CCITT Group 3";
+            case 4: return "CCITT Group 4";
+            case 5: return "LZW";
+            case 6: return "JPEG (старый)";
+            case 7: return "JPEG";
+            case 8:
+            case 32946: return "ZIP (Deflate)";
+            case 32773: return "PackBits";
+            case 34712: return "JPEG 2000";
+            case 34925: return "LZMA";
+            case 50000: return "Zstandard";
+            default: return "Неизвестно (" + compression + ")";
+        }
+    }
+}